@@ -2,6 +2,7 @@ package com.searchmiw.history.controller;
 
 import com.searchmiw.history.dto.HistoryEntryResponse;
 import com.searchmiw.history.dto.PagedResponse;
+import com.searchmiw.history.dto.PopularQueryResponse;
 import com.searchmiw.history.model.HistoryEntry;
 import com.searchmiw.history.service.HistoryService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,6 +13,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -29,6 +31,10 @@ import java.util.List;
 public class HistoryController {
     
     private final HistoryService historyService;
+
+    // Largest ranking /popular returns, however many queries are asked for
+    @Value("${history.popular.max-limit:1000}")
+    private int maxPopularLimit;
     
     @GetMapping
     @Operation(summary = "Get all history entries with pagination")
@@ -55,6 +61,22 @@ public class HistoryController {
         return ResponseEntity.ok(content);
     }
     
+    @GetMapping("/popular")
+    @Operation(summary = "Get the most frequent recent queries",
+            description = "Queries grouped by text and language, most searched first")
+    public ResponseEntity<List<PopularQueryResponse>> getPopularQueries(
+            @Parameter(description = "Only count searches in this language")
+            @RequestParam(required = false) String language,
+            @Parameter(description = "How many days back to count")
+            @RequestParam(defaultValue = "7") int days,
+            @Parameter(description = "Maximum number of queries to return, capped at history.popular.max-limit")
+            @RequestParam(defaultValue = "100") int limit) {
+        if (days <= 0 || limit <= 0) {
+            throw new IllegalArgumentException("days and limit must be positive");
+        }
+        return ResponseEntity.ok(historyService.getPopularQueries(language, days, Math.min(limit, maxPopularLimit)));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get history entry by ID")
     @ApiResponses(value = {
@@ -95,9 +117,10 @@ public class HistoryController {
     @Operation(summary = "Create new entry for a specific user")
     public ResponseEntity<HistoryEntryResponse> createEntryForUser(
             @Parameter(description = "User ID") @PathVariable Long userId,
-            @Parameter(description = "Search query") @RequestParam String query) {
+            @Parameter(description = "Search query") @RequestParam String query,
+            @Parameter(description = "Language the search was run in") @RequestParam(required = false) String language) {
         
-        HistoryEntry created = historyService.createEntry(userId, query);
+        HistoryEntry created = historyService.createEntry(userId, query, language);
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(HistoryEntryResponse.fromEntity(created));
@@ -19,6 +19,7 @@ public class HistoryEntryResponse {
     private Long id;
     private Long userId;
     private String query;
+    private String language;
     private LocalDateTime timestamp;
     
     public static HistoryEntryResponse fromEntity(HistoryEntry entity) {
@@ -26,6 +27,7 @@ public class HistoryEntryResponse {
                 .id(entity.getId())
                 .userId(entity.getUserId())
                 .query(entity.getQuery())
+                .language(entity.getLanguage())
                 .timestamp(entity.getTimestamp())
                 .build();
     }
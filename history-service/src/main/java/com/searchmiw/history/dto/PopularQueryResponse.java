@@ -0,0 +1,15 @@
+package com.searchmiw.history.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularQueryResponse {
+
+    private String query;
+    private String language;
+    private Long count;
+}
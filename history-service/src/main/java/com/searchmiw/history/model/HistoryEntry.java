@@ -26,6 +26,14 @@ public class HistoryEntry {
     
     @Column(nullable = false)
     private LocalDateTime timestamp;
+
+    // Language the search was run in; null for entries recorded before it was tracked
+    @Column(length = 16)
+    private String language;
+
+    public HistoryEntry(Long id, Long userId, String query, LocalDateTime timestamp) {
+        this(id, userId, query, timestamp, null);
+    }
     
     @PrePersist
     protected void onCreate() {
@@ -1,11 +1,15 @@
 package com.searchmiw.history.repository;
 
+import com.searchmiw.history.dto.PopularQueryResponse;
 import com.searchmiw.history.model.HistoryEntry;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -15,4 +19,13 @@ public interface HistoryRepository extends JpaRepository<HistoryEntry, Long> {
     Page<HistoryEntry> findByUserId(Long userId, Pageable pageable);
     Page<HistoryEntry> findByUserIdOrderByTimestampDesc(Long userId, Pageable pageable);
     void deleteByUserId(Long userId);
+
+    @Query("SELECT new com.searchmiw.history.dto.PopularQueryResponse(h.query, h.language, COUNT(h)) " +
+           "FROM HistoryEntry h " +
+           "WHERE h.timestamp >= :since AND (:language IS NULL OR h.language = :language) " +
+           "GROUP BY h.query, h.language " +
+           "ORDER BY COUNT(h) DESC")
+    List<PopularQueryResponse> findPopularQueries(@Param("since") LocalDateTime since,
+                                                  @Param("language") String language,
+                                                  Pageable pageable);
 }
@@ -1,13 +1,16 @@
 package com.searchmiw.history.service;
 
+import com.searchmiw.history.dto.PopularQueryResponse;
 import com.searchmiw.history.model.HistoryEntry;
 import com.searchmiw.history.repository.HistoryRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,12 +45,18 @@ public class HistoryService {
         return historyRepository.save(entry);
     }
     
-    public HistoryEntry createEntry(Long userId, String query) {
+    public HistoryEntry createEntry(Long userId, String query, String language) {
         HistoryEntry entry = new HistoryEntry();
         entry.setUserId(userId);
         entry.setQuery(query);
+        entry.setLanguage(language);
         return historyRepository.save(entry);
     }
+
+    public List<PopularQueryResponse> getPopularQueries(String language, int days, int limit) {
+        LocalDateTime since = LocalDateTime.now().minusDays(days);
+        return historyRepository.findPopularQueries(since, language, PageRequest.of(0, limit));
+    }
     
     public void deleteEntry(Long id) {
         historyRepository.deleteById(id);
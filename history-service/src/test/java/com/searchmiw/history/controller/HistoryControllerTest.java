@@ -1,6 +1,7 @@
 package com.searchmiw.history.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchmiw.history.dto.PopularQueryResponse;
 import com.searchmiw.history.model.HistoryEntry;
 import com.searchmiw.history.service.HistoryService;
 import org.junit.jupiter.api.Test;
@@ -12,9 +13,11 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -100,7 +103,7 @@ class HistoryControllerTest {
         // Given
         HistoryEntry createdEntry = new HistoryEntry(1L, 101L, "test query", LocalDateTime.now());
         
-        when(historyService.createEntry(eq(101L), eq("test query"))).thenReturn(createdEntry);
+        when(historyService.createEntry(eq(101L), eq("test query"), isNull())).thenReturn(createdEntry);
 
         // When & Then
         mockMvc.perform(post("/api/history/user/101")
@@ -124,4 +127,40 @@ class HistoryControllerTest {
         mockMvc.perform(delete("/api/history/user/101"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void getPopularQueries_ShouldReturnRankedQueries() throws Exception {
+        // Given
+        when(historyService.getPopularQueries("en", 7, 100)).thenReturn(List.of(
+                new PopularQueryResponse("einstein", "en", 5L),
+                new PopularQueryResponse("curie", "en", 2L)));
+
+        // When & Then
+        mockMvc.perform(get("/api/history/popular")
+                .param("language", "en"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].query").value("einstein"))
+                .andExpect(jsonPath("$[0].count").value(5))
+                .andExpect(jsonPath("$[1].query").value("curie"));
+    }
+
+    @Test
+    void getPopularQueries_ShouldRejectNonPositiveLimitOrDays() throws Exception {
+        mockMvc.perform(get("/api/history/popular").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/history/popular").param("limit", "-5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/history/popular").param("days", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getPopularQueries_ShouldCapLimit() throws Exception {
+        when(historyService.getPopularQueries(null, 7, 1000)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/history/popular").param("limit", "1000000"))
+                .andExpect(status().isOk());
+
+        verify(historyService).getPopularQueries(null, 7, 1000);
+    }
 }
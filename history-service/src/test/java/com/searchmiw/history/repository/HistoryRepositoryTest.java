@@ -1,11 +1,14 @@
 package com.searchmiw.history.repository;
 
+import com.searchmiw.history.dto.PopularQueryResponse;
 import com.searchmiw.history.model.HistoryEntry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -92,4 +95,38 @@ class HistoryRepositoryTest {
         assertThat(historyRepository.findByUserId(101L)).isEmpty();
         assertThat(historyRepository.findByUserId(102L)).hasSize(1);
     }
+
+    @Test
+    void findPopularQueries_ShouldRankByCountWithinLanguage() {
+        // Given
+        HistoryEntry entry1 = new HistoryEntry();
+        entry1.setUserId(101L);
+        entry1.setQuery("einstein");
+        entry1.setLanguage("en");
+
+        HistoryEntry entry2 = new HistoryEntry();
+        entry2.setUserId(102L);
+        entry2.setQuery("einstein");
+        entry2.setLanguage("en");
+
+        HistoryEntry entry3 = new HistoryEntry();
+        entry3.setUserId(101L);
+        entry3.setQuery("curie");
+        entry3.setLanguage("en");
+
+        HistoryEntry entry4 = new HistoryEntry();
+        entry4.setUserId(103L);
+        entry4.setQuery("cervantes");
+        entry4.setLanguage("es");
+
+        historyRepository.saveAll(List.of(entry1, entry2, entry3, entry4));
+
+        // When
+        List<PopularQueryResponse> popular = historyRepository.findPopularQueries(
+                LocalDateTime.now().minusDays(1), "en", PageRequest.of(0, 10));
+
+        // Then
+        assertThat(popular).extracting(PopularQueryResponse::getQuery).containsExactly("einstein", "curie");
+        assertThat(popular.get(0).getCount()).isEqualTo(2L);
+    }
 }
@@ -88,7 +88,7 @@ class HistoryServiceTest {
         when(historyRepository.save(any(HistoryEntry.class))).thenReturn(savedEntry);
 
         // When
-        HistoryEntry result = historyService.createEntry(101L, "new query");
+        HistoryEntry result = historyService.createEntry(101L, "new query", "en");
 
         // Then
         assertThat(result).isEqualTo(savedEntry);
@@ -0,0 +1,157 @@
+package com.searchmiw.search.cache;
+
+import com.searchmiw.search.model.PopularQuery;
+import com.searchmiw.search.service.HistoryService;
+import com.searchmiw.search.service.SearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prefills wikidata-searches with the most frequent recent queries recorded by
+ * history-service, at startup and then periodically.
+ * <p>
+ * Searches are issued one at a time and no faster than {@code rate-per-second}, so a
+ * warm-up never bursts against Wikidata. The service reports itself as not ready until
+ * {@code ready-share} of the first warm set has loaded; an empty or unreachable warm set
+ * counts as loaded. If Wikidata is down at boot the warm set cannot load, so the service
+ * also reports ready once {@code max-duration} has passed since startup and answers
+ * cold rather than staying out of rotation. Once ready it stays ready, later runs only
+ * refresh the cache.
+ */
+@Component
+@Slf4j
+public class CacheWarmer implements HealthIndicator {
+
+    private final SearchService searchService;
+    private final HistoryService historyService;
+    private final boolean enabled;
+    private final List<String> languages;
+    private final int topN;
+    private final int days;
+    private final Duration pacing;
+    private final double readyShare;
+    private final Duration maxDuration;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private volatile boolean ready;
+
+    public CacheWarmer(SearchService searchService,
+                       HistoryService historyService,
+                       @Value("${search.warmup.enabled:false}") boolean enabled,
+                       @Value("${search.warmup.languages:en}") List<String> languages,
+                       @Value("${search.warmup.top-n:100}") int topN,
+                       @Value("${search.warmup.days:7}") int days,
+                       @Value("${search.warmup.rate-per-second:5}") double ratePerSecond,
+                       @Value("${search.warmup.ready-share:0.8}") double readyShare,
+                       @Value("${search.warmup.max-duration:PT2M}") Duration maxDuration) {
+        this.searchService = searchService;
+        this.historyService = historyService;
+        this.enabled = enabled;
+        this.languages = languages;
+        this.topN = topN;
+        this.days = days;
+        this.pacing = Duration.ofNanos((long) (1_000_000_000L / ratePerSecond));
+        this.readyShare = readyShare;
+        this.maxDuration = maxDuration;
+        this.ready = !enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (enabled) {
+            warmUp().subscribe();
+            Mono.delay(maxDuration).subscribe(tick -> {
+                if (!ready) {
+                    ready = true;
+                    log.warn("Search cache warm-up did not reach {}% within {}, reporting ready with {}/{} queries loaded",
+                            Math.round(readyShare * 100), maxDuration, loaded.get(), total.get());
+                }
+            });
+        }
+    }
+
+    @Scheduled(initialDelayString = "${search.warmup.interval:PT1H}",
+               fixedDelayString = "${search.warmup.interval:PT1H}")
+    public void scheduledWarmUp() {
+        if (enabled) {
+            warmUp().subscribe();
+        }
+    }
+
+    /**
+     * Runs one warm-up pass. Completes immediately if a pass is already in flight.
+     */
+    public Mono<Void> warmUp() {
+        if (!running.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(languages)
+                .concatMap(language -> historyService.fetchPopularQueries(language, days, topN))
+                .collectList()
+                .flatMapMany(queries -> {
+                    log.info("Warming search cache with {} popular queries", queries.size());
+                    total.set(queries.size());
+                    loaded.set(0);
+                    updateReadiness();
+                    return Flux.fromIterable(queries).delayElements(pacing);
+                })
+                .concatMap(this::load)
+                .then()
+                .doFinally(signal -> {
+                    running.set(false);
+                    log.info("Search cache warm-up finished: {}/{} queries loaded", loaded.get(), total.get());
+                });
+    }
+
+    private Mono<Void> load(PopularQuery popular) {
+        return searchService.search(popular.getQuery(), popular.getLanguage())
+                .doOnNext(result -> {
+                    // Partial results are cached only briefly, so they do not count as warm
+                    if (!result.isPartial()) {
+                        loaded.incrementAndGet();
+                        updateReadiness();
+                    }
+                })
+                .onErrorResume(error -> {
+                    log.warn("Warm-up search for '{}' failed: {}", popular.getQuery(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void updateReadiness() {
+        if (!ready && loaded.get() >= Math.ceil(total.get() * readyShare)) {
+            ready = true;
+            log.info("Search cache warm-up reached {}% of the warm set", Math.round(readyShare * 100));
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = ready ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("loaded", loaded.get())
+                .withDetail("total", total.get())
+                .withDetail("readyShare", readyShare)
+                .build();
+    }
+}
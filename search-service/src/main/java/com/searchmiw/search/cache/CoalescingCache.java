@@ -0,0 +1,102 @@
+package com.searchmiw.search.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Reactive view over an async-mode Spring cache. Concurrent misses on one key
+ * share a single load, and every lookup is counted in {@code search.cache.lookups}
+ * as a hit, a miss or a coalesced call that joined a load already in flight.
+ */
+@Slf4j
+public class CoalescingCache<K, V> {
+
+    private final Cache cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public CoalescingCache(Cache cache, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.hits = lookupCounter(meterRegistry, cache.getName(), "hit");
+        this.misses = lookupCounter(meterRegistry, cache.getName(), "miss");
+        this.coalesced = lookupCounter(meterRegistry, cache.getName(), "coalesced");
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String cacheName, String outcome) {
+        return Counter.builder("search.cache.lookups")
+                .description("Search cache lookups by outcome; coalesced lookups joined an in-flight load")
+                .tag("cache", cacheName)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached value for the key, running the loader only if no value
+     * is cached or being loaded. A loader that errors leaves nothing in the cache.
+     */
+    public Mono<V> get(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            // The async cache hands every concurrent miss on a key the same future,
+            // so only the first caller runs the loader and the rest share it
+            AtomicBoolean loaded = new AtomicBoolean();
+            CompletableFuture<V> result = cache.retrieve(key, () -> {
+                loaded.set(true);
+                return loader.get().toFuture();
+            });
+            if (loaded.get()) {
+                misses.increment();
+            } else if (result.isDone()) {
+                hits.increment();
+            } else {
+                coalesced.increment();
+                log.debug("Joining in-flight load of '{}' for key: {}", cache.getName(), key);
+            }
+            // Cancelling one subscriber must not cancel the load the others share
+            return Mono.fromFuture(result, true);
+        });
+    }
+
+    /**
+     * Returns the cached value without loading it; empty if the key is neither
+     * cached nor being loaded. Not counted as a lookup.
+     */
+    public Mono<V> getIfPresent(K key) {
+        return Mono.defer(() -> {
+            CompletableFuture<?> result = cache.retrieve(key);
+            return result != null ? Mono.fromFuture(result, true).map(this::unwrap) : Mono.empty();
+        });
+    }
+
+    /**
+     * Returns the value if one is cached and fully loaded, otherwise null.
+     * Never waits and never joins a load in flight.
+     */
+    public V peek(K key) {
+        CompletableFuture<?> result = cache.retrieve(key);
+        if (result == null || !result.isDone() || result.isCompletedExceptionally()) {
+            return null;
+        }
+        return unwrap(result.join());
+    }
+
+    /**
+     * Replaces the cached value, for example after extending it.
+     */
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    // retrieve(key) without a loader yields the value wrapped when the cache allows nulls
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object value) {
+        return (V) (value instanceof Cache.ValueWrapper wrapper ? wrapper.get() : value);
+    }
+}
@@ -0,0 +1,12 @@
+package com.searchmiw.search.cache;
+
+/**
+ * Cache key for an entity's details: its id together with the language they were read in.
+ */
+public record EntityKey(String id, String language) {
+
+    @Override
+    public String toString() {
+        return id + "-" + language;
+    }
+}
@@ -0,0 +1,116 @@
+package com.searchmiw.search.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Remembers (term, language) pairs that Wikidata answered with no results, so the
+ * fan-out can skip them without a round trip once their cache entry has expired.
+ *
+ * <p>Two Bloom filter generations are kept and rotated on a schedule, bounding
+ * memory and letting a term that starts returning results be looked up again.
+ * A small sample of filtered terms is still sent upstream to measure the real
+ * false-positive rate.
+ */
+@Component
+@Slf4j
+public class NegativeTermFilter {
+
+    public enum Decision {
+        /** Not known to be empty, call Wikidata. */
+        FETCH,
+        /** Known to be empty, skip the call. */
+        SKIP,
+        /** Known to be empty but sampled to be checked upstream. */
+        VERIFY
+    }
+
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final double verifySampleRate;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    private final Counter upstreamSaved;
+    private final Counter verifications;
+    private final Counter falsePositives;
+
+    public NegativeTermFilter(@Value("${search.negative-filter.expected-terms:100000}") long expectedInsertions,
+                              @Value("${search.negative-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+                              @Value("${search.negative-filter.verify-sample-rate:0.01}") double verifySampleRate,
+                              MeterRegistry meterRegistry) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.verifySampleRate = verifySampleRate;
+        this.current = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        this.previous = new BloomFilter(expectedInsertions, falsePositiveProbability);
+
+        this.upstreamSaved = Counter.builder("search.negative-filter.upstream-saved")
+                .description("Wikidata calls skipped because the term is known to have no results")
+                .register(meterRegistry);
+        this.verifications = Counter.builder("search.negative-filter.verifications")
+                .description("Filtered terms sampled and checked against Wikidata anyway")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("search.negative-filter.false-positives")
+                .description("Sampled filtered terms that Wikidata did return results for")
+                .register(meterRegistry);
+        Gauge.builder("search.negative-filter.expected-fpp", this, NegativeTermFilter::expectedFalsePositiveProbability)
+                .description("False-positive probability implied by the current filter fill")
+                .register(meterRegistry);
+        Gauge.builder("search.negative-filter.observed-fpp", this, NegativeTermFilter::observedFalsePositiveRate)
+                .description("Share of sampled filtered terms that turned out to have results")
+                .register(meterRegistry);
+    }
+
+    public Decision check(SearchKey key) {
+        String value = key.toString();
+        if (!current.mightContain(value) && !previous.mightContain(value)) {
+            return Decision.FETCH;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < verifySampleRate) {
+            verifications.increment();
+            return Decision.VERIFY;
+        }
+        upstreamSaved.increment();
+        return Decision.SKIP;
+    }
+
+    /**
+     * Records the outcome of a successful Wikidata lookup made after {@link #check}.
+     */
+    public void record(SearchKey key, Decision decision, boolean empty) {
+        if (empty) {
+            current.add(key.toString());
+        } else if (decision == Decision.VERIFY) {
+            falsePositives.increment();
+            log.debug("Negative filter false positive for '{}'", key);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${search.negative-filter.rotate-interval:PT6H}",
+            fixedDelayString = "${search.negative-filter.rotate-interval:PT6H}")
+    public void rotate() {
+        previous = current;
+        current = new BloomFilter(expectedInsertions, falsePositiveProbability);
+    }
+
+    double expectedFalsePositiveProbability() {
+        // A lookup checks both generations, so either one can produce a false positive
+        double p1 = current.expectedFalsePositiveProbability();
+        double p2 = previous.expectedFalsePositiveProbability();
+        return 1 - (1 - p1) * (1 - p2);
+    }
+
+    double observedFalsePositiveRate() {
+        double checked = verifications.count();
+        return checked == 0 ? 0 : falsePositives.count() / checked;
+    }
+}
@@ -0,0 +1,61 @@
+package com.searchmiw.search.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Publishes the standard {@code cache.*} meters for {@link OffHeapSearchCache},
+ * plus the direct memory in use and reserved against the tier's byte budget.
+ */
+public class OffHeapCacheMetrics extends CacheMeterBinder<OffHeapSearchCache> {
+
+    public OffHeapCacheMetrics(OffHeapSearchCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        return getCache().size();
+    }
+
+    @Override
+    protected long hitCount() {
+        return getCache().hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return getCache().missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return getCache().evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return getCache().putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        Gauge.builder("cache.offheap.used", getCache(), OffHeapSearchCache::usedBytes)
+                .tags(getTagsWithCacheName())
+                .description("Direct memory taken by the blocks of cached entries")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("cache.offheap.reserved", getCache(), OffHeapSearchCache::reservedBytes)
+                .tags(getTagsWithCacheName())
+                .description("Direct memory reserved in slabs, in use or free")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("cache.offheap.max", getCache(), OffHeapSearchCache::maxBytes)
+                .tags(getTagsWithCacheName())
+                .description("Direct memory budget of the off-heap tier")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
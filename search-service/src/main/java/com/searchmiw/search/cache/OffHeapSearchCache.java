@@ -0,0 +1,320 @@
+package com.searchmiw.search.cache;
+
+import com.searchmiw.search.model.SearchResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Second cache tier for search results pushed out of the on-heap Caffeine cache.
+ * Results are encoded with {@link SearchResultCodec}, deflated and kept in direct
+ * memory, so the heap only holds the key and a small block list per entry and a
+ * much larger working set stays out of the garbage collector's way.
+ *
+ * <p>Direct memory is reserved in slabs of up to {@value #SLAB_SIZE} bytes as the
+ * tier fills, and each slab is cut into {@value #BLOCK_SIZE}-byte blocks. An entry
+ * occupies as many blocks as its compressed size needs, and evicted entries hand
+ * their blocks back to a free list for reuse. Slabs are kept for the life of the
+ * cache, so the tier never relies on the garbage collector to release direct
+ * buffers and never holds more than its budget.
+ *
+ * <p>The tier is bounded by the blocks in use and evicts the least recently used
+ * entries first. Entries also expire a fixed time after they were demoted. Empty
+ * and partial results are not demoted: the heap tier gives them a short lifetime
+ * so they are retried soon, which a longer stay off-heap would undo. A budget of
+ * zero disables the tier.
+ */
+@Slf4j
+public class OffHeapSearchCache extends AbstractValueAdaptingCache {
+
+    static final int BLOCK_SIZE = 1024;
+    static final int SLAB_SIZE = 16 << 20;
+
+    private final String name;
+    private final long maxBytes;
+    private final long timeToLiveMillis;
+    private final int totalBlocks;
+    private final int blocksPerSlab;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int reservedBlocks;
+    private int[] freeBlocks = new int[0];
+    private int freeCount;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry(int[] blocks, int length, int uncompressedSize, long expiresAt) {
+    }
+
+    public OffHeapSearchCache(String name, long maxBytes, Duration timeToLive) {
+        super(false);
+        this.name = name;
+        this.maxBytes = maxBytes;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.totalBlocks = (int) Math.min(Math.max(maxBytes, 0) / BLOCK_SIZE, Integer.MAX_VALUE);
+        this.blocksPerSlab = Math.min(SLAB_SIZE / BLOCK_SIZE, totalBlocks);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Entry entry;
+        byte[] compressed = null;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt() <= System.currentTimeMillis()) {
+                remove(key);
+                entry = null;
+            }
+            // Copied out under the lock, as freed blocks are handed straight to the next put
+            if (entry != null) {
+                compressed = read(entry);
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return decode(compressed, entry.uncompressedSize());
+    }
+
+    /**
+     * Removes and returns the entry for the key, for promotion back to the heap tier.
+     */
+    public SearchResult takeIfPresent(Object key) {
+        SearchResult result = (SearchResult) lookup(key);
+        if (result != null) {
+            evict(key);
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            T loaded = valueLoader.call();
+            put(key, loaded);
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (totalBlocks == 0 || !(value instanceof SearchResult result) || SearchExpiry.isNegative(result)) {
+            return;
+        }
+        ByteArrayOutputStream raw = encode(result);
+        byte[] compressed = compress(raw);
+        int needed = blocksFor(compressed.length);
+        if (needed > totalBlocks) {
+            log.debug("Not moving '{}' off-heap: {} bytes exceed the tier budget", key, compressed.length);
+            return;
+        }
+        synchronized (this) {
+            remove(key);
+            Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+            while (freeCount < needed) {
+                if (reservedBlocks < totalBlocks) {
+                    reserveSlab();
+                } else {
+                    release(eldest.next().getValue());
+                    eldest.remove();
+                    evictions.increment();
+                }
+            }
+            entries.put(key, write(compressed, needed, raw.size()));
+        }
+        puts.increment();
+    }
+
+    @Override
+    public synchronized void evict(Object key) {
+        remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        // Every reserved block goes back on the free list; the slabs themselves are kept
+        freeCount = 0;
+        for (int block = reservedBlocks - 1; block >= 0; block--) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    public synchronized long size() {
+        return entries.size();
+    }
+
+    /**
+     * Bytes of direct memory taken by the blocks of cached entries.
+     */
+    public synchronized long usedBytes() {
+        return (long) (reservedBlocks - freeCount) * BLOCK_SIZE;
+    }
+
+    /**
+     * Bytes of direct memory reserved in slabs so far, whether in use or free.
+     */
+    public synchronized long reservedBytes() {
+        return (long) reservedBlocks * BLOCK_SIZE;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void remove(Object key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            release(removed);
+        }
+    }
+
+    private static int blocksFor(int length) {
+        return Math.max(1, (length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    }
+
+    private void reserveSlab() {
+        int blocks = Math.min(blocksPerSlab, totalBlocks - reservedBlocks);
+        slabs.add(ByteBuffer.allocateDirect(blocks * BLOCK_SIZE));
+        freeBlocks = Arrays.copyOf(freeBlocks, reservedBlocks + blocks);
+        // Pushed in reverse, so the lowest new block is handed out first
+        for (int block = reservedBlocks + blocks - 1; block >= reservedBlocks; block--) {
+            freeBlocks[freeCount++] = block;
+        }
+        reservedBlocks += blocks;
+    }
+
+    private void release(Entry entry) {
+        for (int block : entry.blocks()) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    private Entry write(byte[] compressed, int needed, int uncompressedSize) {
+        int[] blocks = new int[needed];
+        for (int i = 0; i < needed; i++) {
+            int block = freeBlocks[--freeCount];
+            int from = i * BLOCK_SIZE;
+            slab(block).put(offset(block), compressed, from, Math.min(BLOCK_SIZE, compressed.length - from));
+            blocks[i] = block;
+        }
+        return new Entry(blocks, compressed.length, uncompressedSize, System.currentTimeMillis() + timeToLiveMillis);
+    }
+
+    private byte[] read(Entry entry) {
+        byte[] compressed = new byte[entry.length()];
+        int[] blocks = entry.blocks();
+        for (int i = 0; i < blocks.length; i++) {
+            int from = i * BLOCK_SIZE;
+            slab(blocks[i]).get(offset(blocks[i]), compressed, from, Math.min(BLOCK_SIZE, compressed.length - from));
+        }
+        return compressed;
+    }
+
+    private ByteBuffer slab(int block) {
+        return slabs.get(block / blocksPerSlab);
+    }
+
+    private int offset(int block) {
+        return (block % blocksPerSlab) * BLOCK_SIZE;
+    }
+
+    private static ByteArrayOutputStream encode(SearchResult result) {
+        try {
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(raw)) {
+                SearchResultCodec.write(out, result);
+            }
+            return raw;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] compress(ByteArrayOutputStream raw) {
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.size() / 2);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+                raw.writeTo(out);
+            } finally {
+                deflater.end();
+            }
+            return compressed.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SearchResult decode(byte[] compressed, int uncompressedSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteBuffer raw = ByteBuffer.allocate(uncompressedSize);
+            inflater.inflate(raw);
+            return SearchResultCodec.read(raw.flip());
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt off-heap cache entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.searchmiw.search.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.searchmiw.search.config.CacheConfig;
+import com.searchmiw.search.model.SearchResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves the {@code wikidata-searches} cache to local disk and restores it on
+ * startup, so a restart does not begin with a cold cache.
+ *
+ * <p>The file holds a header ({@link #MAGIC}, {@link #VERSION}, entry count)
+ * followed by one record per entry: absolute expiry time in epoch millis, the
+ * key's query and language, and the result in {@link SearchResultCodec} form.
+ * Storing the absolute expiry means time spent down counts against the TTL.
+ *
+ * <p>Restoring happens during bean initialisation, before the web server starts
+ * and the service can report healthy.
+ */
+@Component
+@Slf4j
+public class SearchCacheSnapshot {
+
+    static final int MAGIC = 0x534D5753; // "SMWS"
+    static final int VERSION = 2;
+
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+    private final Path path;
+
+    public SearchCacheSnapshot(CacheManager cacheManager,
+                               @Value("${search.cache.snapshot.enabled:false}") boolean enabled,
+                               @Value("${search.cache.snapshot.path:cache/wikidata-searches.bin}") String path) {
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+    }
+
+    @PostConstruct
+    public void restoreOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int restored = restore();
+            log.info("Restored {} cached searches from {}", restored, path);
+        } catch (IOException | RuntimeException e) {
+            // A damaged snapshot only costs us a cold cache, never a failed startup
+            log.warn("Could not restore search cache snapshot from {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${search.cache.snapshot.interval:PT5M}",
+            fixedDelayString = "${search.cache.snapshot.interval:PT5M}")
+    public void savePeriodically() {
+        saveQuietly();
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        saveQuietly();
+    }
+
+    private void saveQuietly() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int saved = save();
+            log.info("Saved {} cached searches to {}", saved, path);
+        } catch (IOException e) {
+            log.error("Could not save search cache snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes all completed entries to a temporary file and atomically moves it over
+     * the previous snapshot, so a crash mid-write never leaves a truncated file.
+     */
+    public synchronized int save() throws IOException {
+        Cache<Object, Object> cache = searchCache().synchronous();
+        Policy.VarExpiration<Object, Object> expiration = varExpiration(cache);
+        long now = System.currentTimeMillis();
+
+        List<Map.Entry<SearchKey, SearchResult>> entries = new ArrayList<>();
+        List<Long> expiresAt = new ArrayList<>();
+        cache.asMap().forEach((key, value) -> expiration.getExpiresAfter(key).ifPresent(remaining -> {
+            entries.add(Map.entry((SearchKey) key, (SearchResult) value));
+            expiresAt.add(now + remaining.toMillis());
+        }));
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (int i = 0; i < entries.size(); i++) {
+                    out.writeLong(expiresAt.get(i));
+                    SearchResultCodec.writeString(out, entries.get(i).getKey().query());
+                    SearchResultCodec.writeString(out, entries.get(i).getKey().language());
+                    SearchResultCodec.write(out, entries.get(i).getValue());
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return entries.size();
+    }
+
+    /**
+     * Loads a snapshot through a read-only memory mapping and puts every entry that
+     * has not expired yet back into the cache with its remaining lifetime.
+     */
+    public int restore() throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        Policy.VarExpiration<Object, Object> expiration = varExpiration(searchCache().synchronous());
+        long now = System.currentTimeMillis();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unrecognised snapshot format");
+            }
+            int count = buffer.getInt();
+            int restored = 0;
+            for (int i = 0; i < count; i++) {
+                long expiresAt = buffer.getLong();
+                SearchKey key = new SearchKey(SearchResultCodec.readString(buffer), SearchResultCodec.readString(buffer));
+                SearchResult result = SearchResultCodec.read(buffer);
+                if (expiresAt > now) {
+                    expiration.put(key, result, Duration.ofMillis(expiresAt - now));
+                    restored++;
+                }
+            }
+            return restored;
+        }
+    }
+
+    private AsyncCache<Object, Object> searchCache() {
+        return ((CaffeineCache) cacheManager.getCache(CacheConfig.SEARCH_CACHE)).getAsyncCache();
+    }
+
+    private static Policy.VarExpiration<Object, Object> varExpiration(Cache<Object, Object> cache) {
+        return cache.policy().expireVariably()
+                .orElseThrow(() -> new IllegalStateException("Search cache must use variable expiry"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.searchmiw.search.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.searchmiw.search.model.EntityDetails;
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.WikidataPage;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Per-entry expiry for cached searches, terms and entities. New and reloaded entries live
+ * for the configured time to live, and reads leave the remaining lifetime
+ * untouched. Negative entries, meaning empty results, results from failed
+ * lookups or entities Wikidata does not know, get a shorter lifetime so they
+ * are retried soon.
+ * Being variable rather than fixed also lets restored entries keep the lifetime
+ * they had left when they were saved.
+ */
+public class SearchExpiry implements Expiry<Object, Object> {
+
+    private final long timeToLiveNanos;
+    private final long negativeTimeToLiveNanos;
+
+    public SearchExpiry(Duration timeToLive) {
+        this(timeToLive, timeToLive);
+    }
+
+    public SearchExpiry(Duration timeToLive, Duration negativeTimeToLive) {
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.negativeTimeToLiveNanos = Math.min(timeToLiveNanos, negativeTimeToLive.toNanos());
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return isNegative(value) ? negativeTimeToLiveNanos : timeToLiveNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return isNegative(value) ? negativeTimeToLiveNanos : timeToLiveNanos;
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    static boolean isNegative(Object value) {
+        if (value instanceof SearchResult result) {
+            return result.isPartial() || result.getTotalResults() == 0;
+        }
+        if (value instanceof WikidataPage page) {
+            return page.isEmpty();
+        }
+        if (value instanceof EntityDetails details) {
+            return details.missing();
+        }
+        return value instanceof Collection<?> items && items.isEmpty();
+    }
+}
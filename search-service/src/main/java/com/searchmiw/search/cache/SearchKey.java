@@ -0,0 +1,13 @@
+package com.searchmiw.search.cache;
+
+/**
+ * Cache key for a search: the query together with the language it was run in.
+ * The string form keeps the historical {@code query-language} layout.
+ */
+public record SearchKey(String query, String language) {
+
+    @Override
+    public String toString() {
+        return query + "-" + language;
+    }
+}
@@ -0,0 +1,81 @@
+package com.searchmiw.search.cache;
+
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.SearchResultItem;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary form of a {@link SearchResult} for storage outside the heap.
+ * Values are written big-endian through {@link DataOutput} and read back from a
+ * {@link ByteBuffer}, so a memory-mapped file can be decoded without copying it.
+ * Strings are a UTF-8 byte length followed by the bytes, with -1 standing for null.
+ */
+public final class SearchResultCodec {
+
+    private SearchResultCodec() {
+    }
+
+    public static void write(DataOutput out, SearchResult result) throws IOException {
+        writeString(out, result.getQuery());
+        out.writeLong(result.getTotalResults());
+        out.writeLong(result.getSearchTime());
+        out.writeBoolean(result.isPartial());
+        out.writeInt(result.getContinueOffset() != null ? result.getContinueOffset() : -1);
+        List<SearchResultItem> items = result.getResults() != null ? result.getResults() : Collections.emptyList();
+        out.writeInt(items.size());
+        for (SearchResultItem item : items) {
+            writeString(out, item.getId());
+            writeString(out, item.getTitle());
+            writeString(out, item.getDescription());
+            writeString(out, item.getUrl());
+        }
+    }
+
+    public static SearchResult read(ByteBuffer in) {
+        String query = readString(in);
+        long totalResults = in.getLong();
+        long searchTime = in.getLong();
+        boolean partial = in.get() != 0;
+        int continueOffset = in.getInt();
+        int size = in.getInt();
+        List<SearchResultItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new SearchResultItem(readString(in), readString(in), readString(in), readString(in)));
+        }
+        return SearchResult.builder()
+                .query(query)
+                .results(items)
+                .totalResults(totalResults)
+                .searchTime(searchTime)
+                .partial(partial)
+                .continueOffset(continueOffset >= 0 ? continueOffset : null)
+                .build();
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,195 @@
+package com.searchmiw.search.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of Wikidata calls in flight and queues the rest.
+ * <p>
+ * The cap adapts with AIMD: every call that answers within {@code latency-threshold}
+ * raises it by {@code 1/limit} (about one per round of calls), while a slow answer,
+ * a timeout or a 429/503 from Wikidata multiplies it by {@code backoff-ratio}. Calls
+ * that wait longer than {@code max-queue-wait} for a slot fail with
+ * {@link UpstreamSaturatedException} so callers can answer from cached data.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Duration maxQueueWait;
+
+    private final Deque<Permit> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+
+    private final Timer queueWait;
+    private final Counter queueTimeouts;
+
+    public AdaptiveConcurrencyLimiter(@Value("${search.upstream.limiter.initial-limit:10}") int initialLimit,
+                                      @Value("${search.upstream.limiter.min-limit:2}") int minLimit,
+                                      @Value("${search.upstream.limiter.max-limit:64}") int maxLimit,
+                                      @Value("${search.upstream.limiter.latency-threshold:1s}") Duration latencyThreshold,
+                                      @Value("${search.upstream.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${search.upstream.limiter.max-queue-wait:1s}") Duration maxQueueWait,
+                                      MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.maxQueueWait = maxQueueWait;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder("search.upstream.limit", this, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive limit on concurrent Wikidata calls")
+                .register(meterRegistry);
+        Gauge.builder("search.upstream.inflight", this, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Wikidata calls in flight")
+                .register(meterRegistry);
+        Gauge.builder("search.upstream.queue.depth", this, AdaptiveConcurrencyLimiter::queueDepth)
+                .description("Wikidata calls waiting for a slot")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("search.upstream.queue.wait")
+                .description("Time Wikidata calls waited for a slot")
+                .register(meterRegistry);
+        this.queueTimeouts = Counter.builder("search.upstream.queue.timeouts")
+                .description("Wikidata calls given up after waiting max-queue-wait")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call once a slot is free. The call's latency and outcome feed the limit.
+     */
+    public <T> Mono<T> execute(Mono<T> call) {
+        return Mono.defer(() -> {
+            Permit permit = new Permit();
+            return acquire(permit)
+                    .then(Mono.defer(() -> {
+                        permit.startedAt = System.nanoTime();
+                        return call;
+                    }))
+                    .doOnSuccess(value -> release(permit, Outcome.SUCCESS))
+                    .doOnError(error -> release(permit, isOverload(error) ? Outcome.DROPPED : Outcome.IGNORED))
+                    .doOnCancel(() -> release(permit, Outcome.IGNORED));
+        });
+    }
+
+    private Mono<Void> acquire(Permit permit) {
+        synchronized (this) {
+            if (queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                permit.granted = true;
+            } else {
+                queue.addLast(permit);
+            }
+        }
+        if (permit.granted) {
+            queueWait.record(0, TimeUnit.NANOSECONDS);
+            return Mono.empty();
+        }
+        return Mono.fromFuture(permit.ready, true)
+                .timeout(maxQueueWait)
+                .onErrorMap(TimeoutException.class, e -> {
+                    queueTimeouts.increment();
+                    return new UpstreamSaturatedException("No Wikidata slot free within " + maxQueueWait);
+                })
+                .then();
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        if (!permit.released.compareAndSet(false, true)) {
+            return;
+        }
+        List<Permit> toStart = new ArrayList<>();
+        synchronized (this) {
+            if (!permit.granted) {
+                queue.remove(permit);
+                return;
+            }
+            inFlight--;
+            if (permit.startedAt != 0) {
+                adjust(outcome, System.nanoTime() - permit.startedAt);
+            }
+            while (!queue.isEmpty() && inFlight < (int) limit) {
+                Permit next = queue.pollFirst();
+                next.granted = true;
+                inFlight++;
+                toStart.add(next);
+            }
+        }
+        // Completed outside the lock, as completing starts the queued call
+        long now = System.nanoTime();
+        for (Permit next : toStart) {
+            queueWait.record(now - next.enqueuedAt, TimeUnit.NANOSECONDS);
+            next.ready.complete(null);
+        }
+    }
+
+    private void adjust(Outcome outcome, long latencyNanos) {
+        if (outcome == Outcome.IGNORED) {
+            return;
+        }
+        if (outcome == Outcome.DROPPED || latencyNanos > latencyThresholdNanos) {
+            double reduced = Math.max(minLimit, limit * backoffRatio);
+            if ((int) reduced < (int) limit) {
+                log.debug("Lowering Wikidata concurrency limit to {}", (int) reduced);
+            }
+            limit = reduced;
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private static boolean isOverload(Throwable error) {
+        if (error instanceof TimeoutException) {
+            return true;
+        }
+        return error instanceof WebClientResponseException response
+                && (response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || response.getStatusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    private enum Outcome { SUCCESS, DROPPED, IGNORED }
+
+    private static final class Permit {
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Void> ready = new CompletableFuture<>();
+        final AtomicBoolean released = new AtomicBoolean();
+        // Guarded by the limiter's lock
+        boolean granted;
+        volatile long startedAt;
+    }
+}
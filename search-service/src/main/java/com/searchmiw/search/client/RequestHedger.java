@@ -0,0 +1,208 @@
+package com.searchmiw.search.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second, identical Wikidata call when the first has not answered within
+ * the live {@code percentile} latency of its language; whichever answers first is
+ * used and the other is cancelled.
+ * <p>
+ * Hedges are paid for from a budget that grows by {@code budget-percent} of a call
+ * for every call made, so they add at most that share of extra load. No hedge is sent
+ * for a language until {@code min-samples} calls have been measured for it.
+ * <p>
+ * Latency is tracked per configured search language ({@code search.suggest.languages});
+ * any other language a client asks for shares one "other" bucket, so requests cannot
+ * create meters at will. Calls are measured through {@link #measure} from the moment
+ * the concurrency limiter lets them through, so time spent queueing does not raise
+ * the percentile and set off hedges on its own.
+ */
+@Component
+@Slf4j
+public class RequestHedger {
+
+    static final String OTHER_LANGUAGES = "other";
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minSamples;
+    private final Duration minDelay;
+    private final double budgetPerCall;
+    private final double maxBudget;
+    private final Set<String> languages;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> latencies = new ConcurrentHashMap<>();
+    private final Counter fired;
+    private final Counter won;
+    private final Counter denied;
+    private double budget;
+
+    public RequestHedger(@Value("${search.upstream.hedging.enabled:false}") boolean enabled,
+                         @Value("${search.upstream.hedging.percentile:0.95}") double percentile,
+                         @Value("${search.upstream.hedging.min-samples:20}") long minSamples,
+                         @Value("${search.upstream.hedging.min-delay:20ms}") Duration minDelay,
+                         @Value("${search.upstream.hedging.budget-percent:5}") double budgetPercent,
+                         @Value("${search.suggest.languages:en,es}") List<String> languages,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.minDelay = minDelay;
+        this.budgetPerCall = budgetPercent / 100.0;
+        // Lets a few hedges through in a burst after a quiet period, but no more
+        this.maxBudget = Math.max(1.0, budgetPerCall * 100);
+        this.languages = Set.copyOf(languages);
+        this.meterRegistry = meterRegistry;
+        this.fired = hedgeCounter("fired");
+        this.won = hedgeCounter("won");
+        this.denied = hedgeCounter("denied");
+    }
+
+    private Counter hedgeCounter(String event) {
+        return Counter.builder("search.upstream.hedges")
+                .description("Hedged Wikidata calls: fired, won the race, or denied by the hedge budget")
+                .tag("event", event)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call, hedging it if it is slower than usual for the language.
+     * The supplier is invoked once per attempt, and should wrap the part of the
+     * call that is actually sent to Wikidata in {@link #measure}.
+     */
+    public <T> Mono<T> execute(String language, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        return Mono.defer(() -> {
+            addBudget();
+            Duration delay = hedgeDelay(timer(language));
+            if (delay == null) {
+                return call.get();
+            }
+            return race(call, delay);
+        });
+    }
+
+    /**
+     * Records the latency of a successful call for the language. Applied inside the
+     * concurrency limiter, so only the time Wikidata takes is measured.
+     */
+    public <T> Mono<T> measure(String language, Mono<T> call) {
+        if (!enabled) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            Timer timer = timer(language);
+            long start = System.nanoTime();
+            return call.doOnSuccess(value -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Timer timer(String language) {
+        return latencies.computeIfAbsent(languages.contains(language) ? language : OTHER_LANGUAGES,
+                this::latencyTimer);
+    }
+
+    private <T> Mono<T> race(Supplier<Mono<T>> call, Duration delay) {
+        return Mono.create(sink -> {
+            AtomicBoolean settled = new AtomicBoolean();
+            AtomicInteger running = new AtomicInteger(1);
+            Disposable.Composite attempts = Disposables.composite();
+            // Settling the sink disposes everything, which cancels the losing attempt
+            sink.onDispose(attempts);
+
+            BiConsumer<Mono<T>, Boolean> attempt = (mono, hedge) -> attempts.add(
+                    mono.subscribe(
+                            value -> {
+                                if (settled.compareAndSet(false, true)) {
+                                    if (hedge) {
+                                        won.increment();
+                                    }
+                                    sink.success(value);
+                                }
+                            },
+                            error -> {
+                                // Fail only once no attempt is left that could still answer
+                                if (running.decrementAndGet() == 0 && settled.compareAndSet(false, true)) {
+                                    sink.error(error);
+                                }
+                            },
+                            () -> {
+                                if (settled.compareAndSet(false, true)) {
+                                    sink.success();
+                                }
+                            }));
+
+            attempt.accept(call.get(), false);
+            attempts.add(Mono.delay(delay).subscribe(tick -> {
+                if (settled.get()) {
+                    return;
+                }
+                if (!takeBudget()) {
+                    denied.increment();
+                    return;
+                }
+                log.debug("Wikidata call still pending after {}, sending a hedge", delay);
+                fired.increment();
+                running.incrementAndGet();
+                attempt.accept(call.get(), true);
+            }));
+        });
+    }
+
+    private Timer latencyTimer(String language) {
+        return Timer.builder("search.upstream.latency")
+                .description("Latency of successful Wikidata calls, the basis for hedging")
+                .tag("language", language)
+                .publishPercentiles(percentile)
+                .register(meterRegistry);
+    }
+
+    private Duration hedgeDelay(Timer timer) {
+        if (timer.count() < minSamples) {
+            return null;
+        }
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile && value.value() > 0) {
+                Duration delay = Duration.ofNanos((long) value.value(TimeUnit.NANOSECONDS));
+                return delay.compareTo(minDelay) < 0 ? minDelay : delay;
+            }
+        }
+        // No calls in the current percentile window yet
+        return null;
+    }
+
+    private synchronized void addBudget() {
+        budget = Math.min(maxBudget, budget + budgetPerCall);
+    }
+
+    private synchronized boolean takeBudget() {
+        if (budget < 1.0) {
+            return false;
+        }
+        budget -= 1.0;
+        return true;
+    }
+}
@@ -0,0 +1,225 @@
+package com.searchmiw.search.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One circuit breaker per Wikidata endpoint (API action).
+ * <p>
+ * The outcome of the last {@code window-size} calls is kept; once at least
+ * {@code minimum-calls} are known and {@code failure-rate-threshold} percent of them
+ * failed, the circuit opens and calls fail at once with
+ * {@link UpstreamUnavailableException} instead of waiting for a timeout. After
+ * {@code open-duration} up to {@code half-open-probes} calls are let through: if all
+ * succeed the circuit closes, if any fails it opens again.
+ * <p>
+ * Only signs of an unhealthy upstream count as failures: timeouts, connection errors,
+ * 5xx and 429 responses. Calls the limiter shed never reached Wikidata and are ignored.
+ */
+@Component
+@Slf4j
+public class UpstreamCircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final boolean enabled;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final int windowSize;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    public UpstreamCircuitBreaker(@Value("${search.upstream.circuit-breaker.enabled:true}") boolean enabled,
+                                  @Value("${search.upstream.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+                                  @Value("${search.upstream.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                                  @Value("${search.upstream.circuit-breaker.window-size:50}") int windowSize,
+                                  @Value("${search.upstream.circuit-breaker.open-duration:30s}") Duration openDuration,
+                                  @Value("${search.upstream.circuit-breaker.half-open-probes:3}") int halfOpenProbes,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.failureRateThreshold = failureRateThreshold;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs the call unless the endpoint's circuit is open. The call's outcome feeds the circuit.
+     */
+    public <T> Mono<T> execute(String endpoint, Mono<T> call) {
+        if (!enabled) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            Circuit circuit = circuits.computeIfAbsent(endpoint, Circuit::new);
+            Admission admission = circuit.tryAcquire();
+            if (admission == Admission.REJECTED) {
+                circuit.rejected.increment();
+                return Mono.error(new UpstreamUnavailableException("Circuit for Wikidata " + endpoint + " is open"));
+            }
+            AtomicBoolean recorded = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuit.record(admission, true);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            if (isFailure(error)) {
+                                circuit.record(admission, false);
+                            } else {
+                                circuit.release(admission);
+                            }
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuit.release(admission);
+                        }
+                    });
+        });
+    }
+
+    public State state(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        return circuit != null ? circuit.state() : State.CLOSED;
+    }
+
+    private static boolean isFailure(Throwable error) {
+        if (error instanceof TimeoutException || error instanceof WebClientRequestException) {
+            return true;
+        }
+        return error instanceof WebClientResponseException response
+                && (response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429);
+    }
+
+    private enum Admission { REJECTED, CALL, PROBE }
+
+    private final class Circuit {
+
+        private final String endpoint;
+        private final Counter rejected;
+
+        // Outcomes of the last calls as a ring buffer, true for success; guarded by this
+        private final boolean[] outcomes = new boolean[windowSize];
+        private int next;
+        private int calls;
+        private int failures;
+
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int probesInFlight;
+        private int probesSucceeded;
+
+        Circuit(String endpoint) {
+            this.endpoint = endpoint;
+            Gauge.builder("search.upstream.circuit.state", this, circuit -> circuit.state().ordinal())
+                    .description("Circuit state per Wikidata endpoint: 0 closed, 1 half-open, 2 open")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("search.upstream.circuit.rejected")
+                    .description("Wikidata calls failed fast because the endpoint's circuit was open")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized Admission tryAcquire() {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openDurationNanos) {
+                    return Admission.REJECTED;
+                }
+                transition(State.HALF_OPEN);
+                probesInFlight = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight + probesSucceeded >= halfOpenProbes) {
+                    return Admission.REJECTED;
+                }
+                probesInFlight++;
+                return Admission.PROBE;
+            }
+            return Admission.CALL;
+        }
+
+        synchronized void record(Admission admission, boolean success) {
+            if (admission == Admission.PROBE) {
+                if (state != State.HALF_OPEN) {
+                    // Another probe already reopened the circuit
+                    return;
+                }
+                probesInFlight--;
+                if (!success) {
+                    open();
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    transition(State.CLOSED);
+                    calls = 0;
+                    failures = 0;
+                    next = 0;
+                }
+                return;
+            }
+            if (state != State.CLOSED) {
+                // Started before the circuit opened, the window no longer matters
+                return;
+            }
+            if (calls == windowSize) {
+                if (!outcomes[next]) {
+                    failures--;
+                }
+            } else {
+                calls++;
+            }
+            outcomes[next] = success;
+            next = (next + 1) % windowSize;
+            if (!success) {
+                failures++;
+            }
+            if (calls >= minimumCalls && failures * 100.0 / calls >= failureRateThreshold) {
+                open();
+            }
+        }
+
+        // The call ended without saying anything about Wikidata's health
+        synchronized void release(Admission admission) {
+            if (admission == Admission.PROBE && state == State.HALF_OPEN) {
+                probesInFlight--;
+            }
+        }
+
+        private void open() {
+            openedAt = System.nanoTime();
+            transition(State.OPEN);
+        }
+
+        private void transition(State to) {
+            if (state != to) {
+                log.warn("Wikidata {} circuit {} -> {}", endpoint, state, to);
+                state = to;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.searchmiw.search.client;
+
+/**
+ * A Wikidata call was not started because no slot became free in time.
+ */
+public class UpstreamSaturatedException extends RuntimeException {
+
+    public UpstreamSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.searchmiw.search.client;
+
+/**
+ * A Wikidata call was not started because the circuit for its endpoint is open.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
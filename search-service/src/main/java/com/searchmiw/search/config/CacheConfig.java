@@ -1,22 +1,151 @@
 package com.searchmiw.search.config;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.searchmiw.search.cache.OffHeapCacheMetrics;
+import com.searchmiw.search.cache.OffHeapSearchCache;
+import com.searchmiw.search.cache.SearchExpiry;
+import com.searchmiw.search.cache.SearchKey;
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.service.SearchService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.CompositeCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Configuration
 public class CacheConfig {
 
+    public static final String SEARCH_CACHE = "wikidata-searches";
+    public static final String TERM_CACHE = "wikidata-terms";
+    public static final String OFFHEAP_CACHE = "wikidata-searches-offheap";
+    public static final String STALE_TERM_CACHE = "wikidata-terms-stale";
+    public static final String ENTITY_CACHE = "wikidata-entities";
+
+    @Value("${search.cache.maximum-size:1000}")
+    private long maximumSize;
+
+    // Entries older than this are reloaded in the background on their next read
+    @Value("${search.cache.refresh-after:1h}")
+    private Duration refreshAfter;
+
+    // How long past refresh-after a stale entry may still be served while it reloads
+    @Value("${search.cache.stale-budget:15m}")
+    private Duration staleBudget;
+
+    // Lifetime of empty results and of results from failed Wikidata lookups
+    @Value("${search.cache.negative.expire-after:5m}")
+    private Duration negativeExpireAfter;
+
+    @Value("${search.cache.terms.maximum-size:10000}")
+    private long termMaximumSize;
+
+    // Converted results of a single (term, language) Wikidata request, shared across queries
+    @Value("${search.cache.terms.expire-after:1h}")
+    private Duration termExpireAfter;
+
+    @Value("${search.cache.stale.maximum-size:10000}")
+    private long staleMaximumSize;
+
+    // Last good result of each term, kept well past its normal lifetime to answer
+    // from while Wikidata's circuit is open
+    @Value("${search.cache.stale.retain-for:24h}")
+    private Duration staleRetainFor;
+
+    @Value("${search.cache.entities.maximum-size:5000}")
+    private long entityMaximumSize;
+
+    // Details of a single (entity, language) fetched with wbgetentities, shared across queries
+    @Value("${search.cache.entities.expire-after:6h}")
+    private Duration entityExpireAfter;
+
+    // Direct memory budget for compressed results evicted from the heap tier;
+    // must stay below -XX:MaxDirectMemorySize, and 0 disables the tier
+    @Value("${search.cache.offheap.max-bytes:268435456}")
+    private long offHeapMaxBytes;
+
+    @Value("${search.cache.offheap.expire-after:1h}")
+    private Duration offHeapExpireAfter;
+
+    @Bean
+    public OffHeapSearchCache offHeapSearchCache() {
+        return new OffHeapSearchCache(OFFHEAP_CACHE, offHeapMaxBytes, offHeapExpireAfter);
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<OffHeapSearchCache> offHeapCacheMeterBinderProvider() {
+        return OffHeapCacheMetrics::new;
+    }
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("wikidata-searches");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(1, TimeUnit.HOURS));
-        return cacheManager;
+    public CacheManager cacheManager(ObjectProvider<SearchService> searchService, OffHeapSearchCache offHeapSearchCache) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // SearchService returns Mono results, which need Caffeine's async cache view
+        cacheManager.setAsyncCacheMode(true);
+        cacheManager.registerCustomCache(SEARCH_CACHE, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfter(new SearchExpiry(refreshAfter.plus(staleBudget), negativeExpireAfter))
+                // Entries pushed out of the heap for space move down to the off-heap tier
+                .evictionListener((key, value, cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        offHeapSearchCache.put(key, value);
+                    }
+                })
+                .recordStats()
+                .buildAsync(new SearchCacheLoader(searchService)));
+        cacheManager.registerCustomCache(TERM_CACHE, Caffeine.newBuilder()
+                .maximumSize(termMaximumSize)
+                .expireAfter(new SearchExpiry(termExpireAfter, negativeExpireAfter))
+                .recordStats()
+                .buildAsync());
+        cacheManager.registerCustomCache(STALE_TERM_CACHE, Caffeine.newBuilder()
+                .maximumSize(staleMaximumSize)
+                .expireAfterWrite(staleRetainFor)
+                .recordStats()
+                .buildAsync());
+        cacheManager.registerCustomCache(ENTITY_CACHE, Caffeine.newBuilder()
+                .maximumSize(entityMaximumSize)
+                .expireAfter(new SearchExpiry(entityExpireAfter, negativeExpireAfter))
+                .recordStats()
+                .buildAsync());
+
+        // Both tiers are reachable by name, and both get cache metrics bound at startup
+        SimpleCacheManager offHeapCacheManager = new SimpleCacheManager();
+        offHeapCacheManager.setCaches(List.of(offHeapSearchCache));
+        offHeapCacheManager.initializeCaches();
+        return new CompositeCacheManager(cacheManager, offHeapCacheManager);
+    }
+
+    /**
+     * Loader used by Caffeine for refresh-ahead reloads. Initial loads go through
+     * {@link SearchService#search}, so the service is only resolved on first refresh.
+     */
+    private record SearchCacheLoader(ObjectProvider<SearchService> searchService)
+            implements AsyncCacheLoader<Object, Object> {
+
+        @Override
+        public CompletableFuture<Object> asyncLoad(Object key, Executor executor) {
+            return asyncReload(key, null, executor);
+        }
+
+        @Override
+        public CompletableFuture<Object> asyncReload(Object key, Object oldValue, Executor executor) {
+            return searchService.getObject()
+                    .reload((SearchKey) key, (SearchResult) oldValue)
+                    .<Object>map(result -> result)
+                    .toFuture();
+        }
     }
 }
@@ -1,5 +1,8 @@
 package com.searchmiw.search.controller;
 
+import com.searchmiw.search.cache.CacheWarmer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,11 +13,19 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 public class HealthController {
 
+    private final CacheWarmer cacheWarmer;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
         Map<String, String> response = new HashMap<>();
+        // Not healthy until enough of the popular-query warm set is cached
+        if (!cacheWarmer.isReady()) {
+            response.put("status", "WARMING_UP");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
         response.put("status", "UP");
         return ResponseEntity.ok(response);
     }
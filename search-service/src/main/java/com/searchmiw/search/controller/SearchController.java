@@ -1,8 +1,14 @@
 package com.searchmiw.search.controller;
 
+import com.searchmiw.search.model.BatchSearchRequest;
+import com.searchmiw.search.model.EntityExpansion;
 import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.SearchStreamEvent;
+import com.searchmiw.search.model.Suggestion;
 import com.searchmiw.search.service.HistoryService;
+import com.searchmiw.search.service.SearchCursor;
 import com.searchmiw.search.service.SearchService;
+import com.searchmiw.search.service.SuggestionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,8 +18,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/search")
@@ -23,6 +39,19 @@ public class SearchController {
 
     private final SearchService searchService;
     private final HistoryService historyService;
+    private final SuggestionService suggestionService;
+
+    @Value("${search.pagination.default-limit:10}")
+    private int defaultPageSize = 10;
+
+    @Value("${search.batch.max-size:500}")
+    private int maxBatchSize = 500;
+
+    @Value("${search.suggest.max-limit:20}")
+    private int maxSuggestions = 20;
+
+    @Value("${search.languages.max:5}")
+    private int maxLanguages = 5;
 
     @Operation(
         summary = "Search entities in Wikidata",
@@ -39,7 +68,7 @@ public class SearchController {
         )
     })
     @GetMapping
-    public ResponseEntity<SearchResult> search(
+    public Mono<SearchResult> search(
             @Parameter(
                 description = "Search query term",
                 required = true,
@@ -52,26 +81,220 @@ public class SearchController {
                 example = "en"
             )
             @RequestParam(required = false, defaultValue = "en") String language,
+
+            @Parameter(
+                description = "Comma-separated language codes, most preferred first; searched "
+                        + "concurrently and merged by entity. Takes precedence over language",
+                required = false,
+                example = "es,en"
+            )
+            @RequestParam(required = false) List<String> languages,
             
             @Parameter(
                 description = "User identifier for tracking searches",
                 required = false,
                 example = "12345"
             )
-            @RequestParam(required = false) Long userId) {
+            @RequestParam(required = false) Long userId,
+
+            @Parameter(
+                description = "Number of most relevant results to return",
+                required = false,
+                example = "25"
+            )
+            @RequestParam(required = false) Integer topK,
+
+            @Parameter(
+                description = "Page size; enables paging of the ranked results",
+                required = false,
+                example = "10"
+            )
+            @RequestParam(required = false) Integer limit,
+
+            @Parameter(
+                description = "Position of the first result of the page",
+                required = false,
+                example = "0"
+            )
+            @RequestParam(required = false) Integer offset,
+
+            @Parameter(
+                description = "Opaque cursor from a previous page's nextCursor",
+                required = false
+            )
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(
+                description = "Comma-separated entity details to add to each result: aliases, "
+                        + "image, claims. Fetched in bulk and cached per entity",
+                required = false,
+                example = "aliases,image"
+            )
+            @RequestParam(required = false) List<String> expand,
+
+            @Parameter(
+                description = "Search the query as typed, even if it looks like a misspelling "
+                        + "of a known query; the \"search instead for\" of a didYouMean",
+                required = false,
+                example = "false"
+            )
+            @RequestParam(required = false, defaultValue = "false") boolean exact) {
         
         log.info("Received search request for query: {}", query);
-        
-        // Perform search
-        SearchResult result = searchService.search(query, language);
-        
-        // Record search history if userId is provided
-        if (userId != null) {
-            historyService.recordSearchHistory(userId, query);
+
+        boolean multiLanguage = languages != null && !languages.isEmpty();
+        if (multiLanguage && languages.size() > maxLanguages) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxLanguages + " languages may be searched at once");
         }
-        
-        log.info("Returning search results: {} results found", 
-                result.getResults() != null ? result.getResults().size() : 0);
-        return ResponseEntity.ok(result);
+        if (multiLanguage && (cursor != null || limit != null || offset != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Paging is not supported when searching several languages");
+        }
+        Set<EntityExpansion> expansions = parseExpansions(expand);
+        // History, suggestions and expanded details are kept under the preferred language
+        String primaryLanguage = multiLanguage ? languages.get(0) : language;
+
+        Mono<SearchResult> search;
+        if (multiLanguage) {
+            search = searchService.searchLanguages(query, languages, topK, exact);
+        } else if (cursor != null) {
+            SearchCursor position = decodeCursor(cursor);
+            search = searchService.searchPage(query, language, position.offset(), position.limit(), exact);
+        } else if (limit != null || offset != null) {
+            search = searchService.searchPage(query, language,
+                    offset != null ? offset : 0, limit != null ? limit : defaultPageSize, exact);
+        } else {
+            search = searchService.search(query, language, topK, exact);
+        }
+        if (!expansions.isEmpty()) {
+            search = search.flatMap(result -> searchService.expand(result, primaryLanguage, expansions));
+        }
+
+        // History and suggestions get the query that was actually searched: a misspelling
+        // rewritten to a known query must not become known itself, or it would stop being
+        // corrected. History is therefore recorded once the search has answered; no request
+        // thread is held while either call is in flight
+        return search
+                .flatMap(result -> {
+                    // Following a cursor continues a search that was already recorded
+                    Mono<Void> history = cursor == null
+                            ? historyService.recordSearchHistory(userId, searchedQuery(result, query), primaryLanguage)
+                            : Mono.empty();
+                    return history.thenReturn(result);
+                })
+                .doOnNext(result -> {
+                    log.info("Returning search results: {} results found",
+                            result.getResults() != null ? result.getResults().size() : 0);
+                    if (cursor == null && result.getTotalResults() > 0) {
+                        suggestionService.record(searchedQuery(result, query), primaryLanguage);
+                    }
+                });
+    }
+
+    @Operation(
+        summary = "Complete a query prefix",
+        description = "Returns known queries starting with the prefix, most searched first. "
+                + "Served from memory, without calling Wikidata"
+    )
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(
+            @Parameter(description = "What the user has typed so far", required = true, example = "albert ei")
+            @RequestParam String prefix,
+            @Parameter(description = "Language code of the queries", example = "en")
+            @RequestParam(required = false, defaultValue = "en") String language,
+            @Parameter(description = "Maximum number of suggestions", example = "10")
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        return suggestionService.suggest(prefix, language, Math.min(limit, maxSuggestions));
+    }
+
+    @Operation(
+        summary = "Run many searches in one request",
+        description = "Accepts a list of query/language pairs and returns one result per entry, in "
+                + "request order. Repeated queries and shared words are fetched from Wikidata once"
+    )
+    @PostMapping("/batch")
+    public Mono<List<SearchResult>> searchBatch(@RequestBody List<BatchSearchRequest> searches) {
+        if (searches.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch may hold at most " + maxBatchSize + " searches");
+        }
+        for (BatchSearchRequest search : searches) {
+            if (search.getQuery() == null || search.getQuery().isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every search needs a query");
+            }
+            if (search.getLanguage() == null) {
+                search.setLanguage("en");
+            }
+        }
+        log.info("Received batch search request with {} searches", searches.size());
+        return searchService.searchBatch(searches);
+    }
+
+    @Operation(
+        summary = "Stream search results as newline-delimited JSON",
+        description = "Emits the full query's results first, then each word's new results as its "
+                + "Wikidata sub-query completes, and finally a summary event with counts and timing"
+    )
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<SearchStreamEvent> streamNdjson(
+            @Parameter(description = "Search query term", required = true, example = "Albert Einstein")
+            @RequestParam String query,
+            @Parameter(description = "Language code for results", example = "en")
+            @RequestParam(required = false, defaultValue = "en") String language,
+            @Parameter(description = "User identifier for tracking searches", example = "12345")
+            @RequestParam(required = false) Long userId) {
+        return stream(query, language, userId);
+    }
+
+    @Operation(
+        summary = "Stream search results as Server-Sent Events",
+        description = "Same events as the NDJSON stream; the SSE event name is the event type"
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<SearchStreamEvent>> streamEvents(
+            @Parameter(description = "Search query term", required = true, example = "Albert Einstein")
+            @RequestParam String query,
+            @Parameter(description = "Language code for results", example = "en")
+            @RequestParam(required = false, defaultValue = "en") String language,
+            @Parameter(description = "User identifier for tracking searches", example = "12345")
+            @RequestParam(required = false) Long userId) {
+        return stream(query, language, userId)
+                .map(event -> ServerSentEvent.builder(event).event(event.getType()).build());
+    }
+
+    private Flux<SearchStreamEvent> stream(String query, String language, Long userId) {
+        log.info("Received streaming search request for query: {}", query);
+        // History is recorded alongside the stream and never holds back an event
+        return searchService.searchStream(query, language)
+                .mergeWith(historyService.recordSearchHistory(userId, query, language)
+                        .then(Mono.empty()));
+    }
+
+    private static SearchCursor decodeCursor(String cursor) {
+        try {
+            return SearchCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    private static String searchedQuery(SearchResult result, String query) {
+        return result.getDidYouMean() != null ? result.getDidYouMean() : query;
+    }
+
+    private static Set<EntityExpansion> parseExpansions(List<String> expand) {
+        Set<EntityExpansion> expansions = EnumSet.noneOf(EntityExpansion.class);
+        if (expand == null) {
+            return expansions;
+        }
+        for (String value : expand) {
+            try {
+                expansions.add(EntityExpansion.parse(value));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown expansion: " + value, e);
+            }
+        }
+        return expansions;
     }
 }
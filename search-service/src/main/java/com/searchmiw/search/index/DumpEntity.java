@@ -0,0 +1,13 @@
+package com.searchmiw.search.index;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a Wikidata dump entity the local index uses, keyed by language code.
+ */
+public record DumpEntity(String id,
+                         Map<String, String> labels,
+                         Map<String, String> descriptions,
+                         Map<String, List<String>> aliases) {
+}
@@ -0,0 +1,154 @@
+package com.searchmiw.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the nearest known term to a possibly misspelled one.
+ * <p>
+ * Candidates come from a trigram index: a term within k edits of the query shares all
+ * but at most 3k of the query's trigrams, so only terms reaching that count are checked.
+ * A query too short for that bound to require any shared trigram ("abc" and "axc" share
+ * none) is instead checked against every term whose length is within k of its own.
+ * Each is then run through a {@link LevenshteinAutomaton} bounded at k edits, where k
+ * grows with the query's length (none up to two characters, one up to five, then
+ * {@code maxEdits}). The closest term wins, the heavier one on ties.
+ */
+public final class FuzzyMatcher {
+
+    public static final FuzzyMatcher EMPTY = build(Map.of(), 2);
+
+    private final String[] terms;
+    private final long[] weights;
+    private final Map<Long, int[]> trigrams;
+    private final Map<Integer, int[]> byLength;
+    private final Map<String, Integer> known;
+    private final int maxEdits;
+
+    private FuzzyMatcher(String[] terms, long[] weights, Map<Long, int[]> trigrams, Map<Integer, int[]> byLength,
+                         int maxEdits) {
+        this.terms = terms;
+        this.weights = weights;
+        this.trigrams = trigrams;
+        this.byLength = byLength;
+        this.maxEdits = maxEdits;
+        this.known = new HashMap<>(terms.length * 2);
+        for (int i = 0; i < terms.length; i++) {
+            known.put(terms[i], i);
+        }
+    }
+
+    public static FuzzyMatcher build(Map<String, Long> weighted, int maxEdits) {
+        String[] terms = weighted.keySet().stream().filter(term -> !term.isEmpty()).toArray(String[]::new);
+        long[] weights = new long[terms.length];
+        Map<Long, List<Integer>> postings = new HashMap<>();
+        Map<Integer, List<Integer>> lengths = new HashMap<>();
+        for (int i = 0; i < terms.length; i++) {
+            weights[i] = weighted.get(terms[i]);
+            for (long gram : trigrams(terms[i])) {
+                postings.computeIfAbsent(gram, key -> new ArrayList<>()).add(i);
+            }
+            lengths.computeIfAbsent(terms[i].length(), key -> new ArrayList<>()).add(i);
+        }
+        return new FuzzyMatcher(terms, weights, toArrays(postings), toArrays(lengths), maxEdits);
+    }
+
+    private static <K> Map<K, int[]> toArrays(Map<K, List<Integer>> lists) {
+        Map<K, int[]> arrays = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, ids) -> arrays.put(key, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return arrays;
+    }
+
+    // Distinct trigrams of the term padded with a boundary mark, each packed into a long
+    private static long[] trigrams(String term) {
+        String padded = "\u0000" + term + "\u0000";
+        long[] grams = new long[padded.length() - 2];
+        int count = 0;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            long gram = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+            boolean seen = false;
+            for (int j = 0; j < count && !seen; j++) {
+                seen = grams[j] == gram;
+            }
+            if (!seen) {
+                grams[count++] = gram;
+            }
+        }
+        return count == grams.length ? grams : Arrays.copyOf(grams, count);
+    }
+
+    private int editsFor(String term) {
+        int length = term.codePointCount(0, term.length());
+        return length <= 2 ? 0 : length <= 5 ? Math.min(1, maxEdits) : maxEdits;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    public boolean contains(String term) {
+        return known.containsKey(term);
+    }
+
+    /**
+     * The nearest known term within the allowed edits, or null if the term is itself
+     * known or nothing is close enough.
+     */
+    public String nearest(String term) {
+        if (term.isEmpty() || known.containsKey(term)) {
+            return null;
+        }
+        int edits = editsFor(term);
+        if (edits == 0) {
+            return null;
+        }
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(term, edits);
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int id : candidates(term, edits)) {
+            int distance = automaton.distance(terms[id]);
+            if (distance < 0) {
+                continue;
+            }
+            if (distance < bestDistance
+                    || distance == bestDistance && (weights[id] > weights[best]
+                        || weights[id] == weights[best] && terms[id].compareTo(terms[best]) < 0)) {
+                best = id;
+                bestDistance = distance;
+            }
+        }
+        return best >= 0 ? terms[best] : null;
+    }
+
+    private List<Integer> candidates(String term, int edits) {
+        long[] grams = trigrams(term);
+        int minShared = grams.length - 3 * edits;
+        List<Integer> candidates = new ArrayList<>();
+        if (minShared <= 0) {
+            for (int length = Math.max(1, term.length() - edits); length <= term.length() + edits; length++) {
+                for (int id : byLength.getOrDefault(length, new int[0])) {
+                    candidates.add(id);
+                }
+            }
+            return candidates;
+        }
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (long gram : grams) {
+            int[] ids = trigrams.get(gram);
+            if (ids != null) {
+                for (int id : ids) {
+                    shared.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+        shared.forEach((id, count) -> {
+            if (count >= minShared) {
+                candidates.add(id);
+            }
+        });
+        return candidates;
+    }
+}
@@ -0,0 +1,218 @@
+package com.searchmiw.search.index;
+
+import com.searchmiw.search.cache.SearchResultCodec;
+import com.searchmiw.search.model.SearchResultItem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of one segment file written by {@link SegmentWriter}, memory-mapped
+ * so lookups read straight from the page cache without loading the segment on heap.
+ * Postings and entity ids are compared where they lie in the mapping rather than
+ * copied out. All reads use absolute positions or duplicates, so one segment is
+ * safe to share between threads.
+ */
+class IndexSegment {
+
+    private static final String ENTITY_URL_PREFIX = "https://www.wikidata.org/wiki/";
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final int termTable;
+
+    private IndexSegment(Path path, ByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != SegmentWriter.MAGIC || buffer.getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException("Unrecognised index segment format: " + path);
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.termTable = 16 + 4 * docCount;
+    }
+
+    static IndexSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new IndexSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    /**
+     * Postings of a word, ascending by ordinal, or an empty list when the segment
+     * does not contain it.
+     */
+    PostingList postings(String token) {
+        byte[] term = token.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = termOffset(mid);
+            int cmp = compareTerm(offset, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return postingsAt(offset + 2 + term.length);
+            }
+        }
+        return PostingList.EMPTY;
+    }
+
+    /**
+     * The word at a position of the term table, for merging segments.
+     */
+    String term(int index) {
+        int offset = termOffset(index);
+        byte[] term = new byte[buffer.getShort(offset) & 0xFFFF];
+        buffer.get(offset + 2, term);
+        return new String(term, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Postings of the word at a position of the term table, for merging segments.
+     */
+    PostingList postings(int index) {
+        int offset = termOffset(index);
+        return postingsAt(offset + 2 + (buffer.getShort(offset) & 0xFFFF));
+    }
+
+    private int termOffset(int index) {
+        return buffer.getInt(termTable + 4 * index);
+    }
+
+    private PostingList postingsAt(int start) {
+        return new PostingList(buffer, start + 4, buffer.getInt(start));
+    }
+
+    // Unsigned byte comparison of the stored term with the wanted one, without copying it
+    private int compareTerm(int offset, byte[] term) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(offset + 2 + i) & 0xFF, term[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+
+    String id(int ordinal) {
+        return SearchResultCodec.readString(at(ordinal));
+    }
+
+    String description(int ordinal) {
+        ByteBuffer doc = at(ordinal);
+        doc.position(doc.position() + 4 + doc.getInt(doc.position()));
+        return SearchResultCodec.readString(doc);
+    }
+
+    SearchResultItem item(int ordinal) {
+        ByteBuffer doc = at(ordinal);
+        String id = SearchResultCodec.readString(doc);
+        String description = SearchResultCodec.readString(doc);
+        // Same shape as a wbsearchentities hit, whose title is the entity id
+        return new SearchResultItem(id, id, description, ENTITY_URL_PREFIX + id);
+    }
+
+    /**
+     * Whether this segment holds a (possibly newer) version of the entity at an
+     * ordinal of another segment.
+     */
+    boolean contains(IndexSegment other, int ordinal) {
+        int wanted = other.docOffset(ordinal);
+        int low = 0;
+        int high = docCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareId(docOffset(mid), other.buffer, wanted);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ID_ORDER applied to the stored ids without decoding them; entity ids are ASCII,
+    // so their byte length and byte order match the string's
+    private int compareId(int offset, ByteBuffer otherBuffer, int otherOffset) {
+        int length = buffer.getInt(offset);
+        int otherLength = otherBuffer.getInt(otherOffset);
+        if (length != otherLength) {
+            return Integer.compare(length, otherLength);
+        }
+        for (int i = 0; i < length; i++) {
+            int cmp = Integer.compare(buffer.get(offset + 4 + i) & 0xFF, otherBuffer.get(otherOffset + 4 + i) & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private int docOffset(int ordinal) {
+        return buffer.getInt(16 + 4 * ordinal);
+    }
+
+    private ByteBuffer at(int ordinal) {
+        return buffer.duplicate().position(docOffset(ordinal));
+    }
+
+    /**
+     * Postings of one word, {@code ordinal << 2 | field} ascending by ordinal, read in
+     * place from the segment's mapping.
+     */
+    record PostingList(ByteBuffer buffer, int start, int size) {
+
+        static final PostingList EMPTY = new PostingList(ByteBuffer.allocate(0), 0, 0);
+
+        int get(int index) {
+            return buffer.getInt(start + 4 * index);
+        }
+
+        // Binary search by ordinal; returns the posting or -1
+        int find(int ordinal) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int posting = get(mid);
+                int found = posting >>> 2;
+                if (found < ordinal) {
+                    low = mid + 1;
+                } else if (found > ordinal) {
+                    high = mid - 1;
+                } else {
+                    return posting;
+                }
+            }
+            return -1;
+        }
+    }
+}
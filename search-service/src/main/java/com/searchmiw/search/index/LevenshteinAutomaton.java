@@ -0,0 +1,58 @@
+package com.searchmiw.search.index;
+
+/**
+ * Accepts the strings within {@code maxEdits} insertions, deletions or substitutions
+ * of a word.
+ * <p>
+ * The automaton's state after reading a prefix of the candidate is, for each position
+ * of the word, the fewest edits that align the two prefixes, capped at
+ * {@code maxEdits + 1}. Reading stops as soon as every position is over the bound, so
+ * most non-matching candidates are rejected after a few characters. Holds its state
+ * arrays, so one instance must not be used by two threads at once.
+ */
+final class LevenshteinAutomaton {
+
+    private final String word;
+    private final int maxEdits;
+    private int[] state;
+    private int[] next;
+
+    LevenshteinAutomaton(String word, int maxEdits) {
+        this.word = word;
+        this.maxEdits = maxEdits;
+        this.state = new int[word.length() + 1];
+        this.next = new int[word.length() + 1];
+    }
+
+    /**
+     * @return the edit distance to the candidate, or -1 if it is over {@code maxEdits}
+     */
+    int distance(String candidate) {
+        int n = word.length();
+        int dead = maxEdits + 1;
+        if (Math.abs(candidate.length() - n) > maxEdits) {
+            return -1;
+        }
+        for (int i = 0; i <= n; i++) {
+            state[i] = Math.min(i, dead);
+        }
+        for (int j = 0; j < candidate.length(); j++) {
+            char c = candidate.charAt(j);
+            next[0] = Math.min(state[0] + 1, dead);
+            int best = next[0];
+            for (int i = 1; i <= n; i++) {
+                int cost = state[i - 1] + (word.charAt(i - 1) == c ? 0 : 1);
+                cost = Math.min(cost, Math.min(state[i] + 1, next[i - 1] + 1));
+                next[i] = Math.min(cost, dead);
+                best = Math.min(best, next[i]);
+            }
+            if (best == dead) {
+                return -1;
+            }
+            int[] swap = state;
+            state = next;
+            next = swap;
+        }
+        return state[n] <= maxEdits ? state[n] : -1;
+    }
+}
@@ -0,0 +1,172 @@
+package com.searchmiw.search.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Builds the {@link LocalSearchIndex} from Wikidata JSON dumps on local disk.
+ * <p>
+ * {@code dump-path} is a dump file or a directory of them ({@code .json}, {@code .ndjson},
+ * optionally {@code .gz}). Every file not imported yet, or changed since, is streamed
+ * into new segments of at most {@code segment-size} entities per language, so a daily
+ * filtered or incremental dump only adds what it contains. After an import, a language
+ * with more than {@code max-segments} segments has its smallest neighbours merged.
+ * Imported files are recorded in the index directory; deleting the directory forces
+ * a full rebuild.
+ */
+@Component
+@Slf4j
+public class LocalIndexImporter {
+
+    private static final String MANIFEST = "imported-dumps";
+
+    private final LocalSearchIndex index;
+    private final WikidataDumpReader reader;
+    private final String dumpPath;
+    private final Set<String> languages;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    public LocalIndexImporter(LocalSearchIndex index, ObjectMapper objectMapper,
+                              @Value("${search.local.dump-path:}") String dumpPath,
+                              @Value("${search.local.languages:en,es}") List<String> languages,
+                              @Value("${search.local.segment-size:200000}") int segmentSize,
+                              @Value("${search.local.max-segments:32}") int maxSegments) {
+        this.index = index;
+        this.languages = new LinkedHashSet<>(languages);
+        this.reader = new WikidataDumpReader(objectMapper.getFactory(), this.languages);
+        this.dumpPath = dumpPath;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void importOnStartup() {
+        if (dumpPath.isBlank()) {
+            return;
+        }
+        // Dumps are large; the service keeps answering from Wikidata while this runs
+        Mono.fromCallable(this::importDumps)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        imported -> log.info("Local index import finished: {} new dump files", imported),
+                        error -> log.error("Local index import failed: {}", error.getMessage()));
+    }
+
+    /**
+     * Imports every dump under {@code dump-path} that is new or changed since its last import.
+     *
+     * @return the number of dump files imported
+     */
+    public synchronized int importDumps() throws IOException {
+        Path manifest = index.directory().resolve(MANIFEST);
+        Set<String> done = Files.exists(manifest)
+                ? new HashSet<>(Files.readAllLines(manifest, StandardCharsets.UTF_8))
+                : new HashSet<>();
+        int imported = 0;
+        for (Path dump : dumpFiles(Paths.get(dumpPath))) {
+            String record = dump.toAbsolutePath() + "\t" + Files.size(dump) + "\t" + Files.getLastModifiedTime(dump).toMillis();
+            if (done.contains(record)) {
+                continue;
+            }
+            importDump(dump);
+            Files.createDirectories(index.directory());
+            Files.writeString(manifest, record + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            imported++;
+        }
+        if (imported > 0) {
+            compact();
+        }
+        return imported;
+    }
+
+    private void compact() {
+        for (String language : languages) {
+            try {
+                index.compact(language, maxSegments);
+            } catch (IOException e) {
+                // Typically a merge that would outgrow a segment; the unmerged segments still answer
+                log.warn("Could not merge local index segments for '{}': {}", language, e.getMessage());
+            }
+        }
+    }
+
+    private static List<Path> dumpFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return Files.exists(path) ? List.of(path) : List.of();
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.endsWith(".json") || name.endsWith(".json.gz")
+                                || name.endsWith(".ndjson") || name.endsWith(".ndjson.gz");
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Streams one dump into new segments and publishes each as soon as it is written.
+     */
+    public void importDump(Path dump) throws IOException {
+        log.info("Importing Wikidata dump {} into the local index", dump);
+        Map<String, SegmentWriter> writers = new HashMap<>();
+        long entities;
+        try {
+            entities = reader.read(dump, entity -> {
+                for (String language : languages) {
+                    String label = entity.labels().get(language);
+                    String description = entity.descriptions().get(language);
+                    List<String> aliases = entity.aliases().getOrDefault(language, List.of());
+                    if (label == null && description == null && aliases.isEmpty()) {
+                        continue;
+                    }
+                    SegmentWriter writer = writers.computeIfAbsent(language, SegmentWriter::new);
+                    writer.add(entity.id(), label, aliases, description);
+                    if (writer.size() >= segmentSize) {
+                        flush(language, writers.remove(language));
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Map.Entry<String, SegmentWriter> writer : writers.entrySet()) {
+            flush(writer.getKey(), writer.getValue());
+        }
+        log.info("Imported {} entities from {}", entities, dump);
+    }
+
+    private void flush(String language, SegmentWriter writer) {
+        try {
+            Path segment = index.nextSegmentPath(language);
+            writer.write(segment);
+            index.publish(language, segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
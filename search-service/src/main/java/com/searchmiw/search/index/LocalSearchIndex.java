@@ -0,0 +1,277 @@
+package com.searchmiw.search.index;
+
+import com.searchmiw.search.index.IndexSegment.PostingList;
+import com.searchmiw.search.model.SearchResultItem;
+import com.searchmiw.search.model.WikidataPage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index of Wikidata labels, aliases and descriptions on local disk, one
+ * directory of segments per language, built by {@link LocalIndexImporter}.
+ * <p>
+ * Segments are immutable and memory-mapped. Imports add new segments, and an entity in a
+ * newer segment hides its versions in older ones, so the index can be updated from an
+ * incremental dump without rewriting what is there; {@link #compact} later merges
+ * adjacent segments to keep their number bounded. A search returns the entities
+ * containing every word of the query, scored by where each word appears (label, then
+ * alias, then description), in the same shape as wbsearchentities hits.
+ */
+@Component
+@Slf4j
+public class LocalSearchIndex {
+
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int[] FIELD_WEIGHTS = {4, 2, 1};
+
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingInt(Hit::score)
+            .thenComparing(Comparator.comparingInt(Hit::segment).reversed())
+            .thenComparing(Comparator.comparingInt(Hit::ordinal).reversed());
+
+    private final Path directory;
+    private final int maxResults;
+    private final Timer searchTimer;
+
+    // Newest segment first per language; replaced as a whole when a segment is published
+    private volatile Map<String, List<IndexSegment>> segments = Map.of();
+
+    public LocalSearchIndex(@Value("${search.local.index-dir:index}") String directory,
+                            @Value("${search.local.max-results:100}") int maxResults,
+                            MeterRegistry meterRegistry) {
+        this.directory = Paths.get(directory);
+        this.maxResults = maxResults;
+        this.searchTimer = Timer.builder("search.local.latency")
+                .description("Time to answer a term from the local index")
+                .register(meterRegistry);
+        Gauge.builder("search.local.segments", this, LocalSearchIndex::segmentCount)
+                .description("Segments in the local Wikidata index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Map<String, List<IndexSegment>> opened = new HashMap<>();
+        try (Stream<Path> languages = Files.list(directory)) {
+            for (Path languageDir : languages.filter(Files::isDirectory).toList()) {
+                opened.put(languageDir.getFileName().toString(), openSegments(languageDir));
+            }
+        } catch (IOException e) {
+            log.warn("Could not open local index in {}: {}", directory, e.getMessage());
+        }
+        segments = Map.copyOf(opened);
+        log.info("Opened local index in {} with {} segments", directory, segmentCount());
+    }
+
+    private static List<IndexSegment> openSegments(Path languageDir) throws IOException {
+        List<IndexSegment> opened = new ArrayList<>();
+        for (Path file : segmentFiles(languageDir)) {
+            try {
+                opened.add(IndexSegment.open(file));
+            } catch (IOException | RuntimeException e) {
+                // A damaged segment loses its entities, not the whole index
+                log.warn("Skipping index segment {}: {}", file, e.getMessage());
+            }
+        }
+        return opened;
+    }
+
+    // Names carry a zero-padded sequence number, so newest first is reverse name order
+    private static List<Path> segmentFiles(Path languageDir) throws IOException {
+        try (Stream<Path> files = Files.list(languageDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public int segmentCount() {
+        return segments.values().stream().mapToInt(List::size).sum();
+    }
+
+    public boolean isEmpty() {
+        return segmentCount() == 0;
+    }
+
+    /**
+     * Path for the next segment of a language, ordered after every existing one.
+     */
+    synchronized Path nextSegmentPath(String language) throws IOException {
+        Path languageDir = directory.resolve(language);
+        Files.createDirectories(languageDir);
+        List<Path> existing = segmentFiles(languageDir);
+        long next = existing.isEmpty() ? 1 : sequence(existing.get(0)) + 1;
+        return languageDir.resolve(String.format("segment-%08d%s", next, SEGMENT_SUFFIX));
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Makes a written segment searchable, ahead of the older ones.
+     */
+    synchronized void publish(String language, Path path) throws IOException {
+        IndexSegment segment = IndexSegment.open(path);
+        Map<String, List<IndexSegment>> updated = new HashMap<>(segments);
+        List<IndexSegment> languageSegments = new ArrayList<>();
+        languageSegments.add(segment);
+        languageSegments.addAll(updated.getOrDefault(language, List.of()));
+        updated.put(language, List.copyOf(languageSegments));
+        segments = Map.copyOf(updated);
+        log.info("Published local index segment {} with {} entities", path, segment.docCount());
+    }
+
+    /**
+     * Merges adjacent segments of a language, the pair with the fewest entities first,
+     * until at most {@code maxSegments} are left, so incremental imports do not leave
+     * every search walking an ever longer list of small segments. A merged segment
+     * takes the newer one's place and name, keeping the order entities shadow each
+     * other in, and the older file is deleted. Searches already running keep reading
+     * the segments they started with.
+     *
+     * @return the number of merges done
+     */
+    synchronized int compact(String language, int maxSegments) throws IOException {
+        int merges = 0;
+        List<IndexSegment> languageSegments = segments.getOrDefault(language, List.of());
+        while (languageSegments.size() > Math.max(maxSegments, 1)) {
+            int pair = 0;
+            long fewest = Long.MAX_VALUE;
+            for (int i = 0; i + 1 < languageSegments.size(); i++) {
+                long docs = (long) languageSegments.get(i).docCount() + languageSegments.get(i + 1).docCount();
+                if (docs < fewest) {
+                    fewest = docs;
+                    pair = i;
+                }
+            }
+            IndexSegment newer = languageSegments.get(pair);
+            IndexSegment older = languageSegments.get(pair + 1);
+            SegmentWriter.merge(newer, older, newer.path());
+            IndexSegment merged = IndexSegment.open(newer.path());
+
+            List<IndexSegment> updated = new ArrayList<>(languageSegments);
+            updated.set(pair, merged);
+            updated.remove(pair + 1);
+            languageSegments = List.copyOf(updated);
+            Map<String, List<IndexSegment>> all = new HashMap<>(segments);
+            all.put(language, languageSegments);
+            segments = Map.copyOf(all);
+            // Only now, so a crash before this leaves the merged segment shadowing a duplicate
+            Files.deleteIfExists(older.path());
+            merges++;
+            log.info("Merged local index segment {} into {}, now {} entities", older.path(), merged.path(),
+                    merged.docCount());
+        }
+        return merges;
+    }
+
+    /**
+     * Searches the language's segments for entities containing every word of the term.
+     * Returns an empty page if nothing matches or the language is not indexed.
+     */
+    public WikidataPage search(String term, String language) {
+        long start = System.nanoTime();
+        try {
+            List<IndexSegment> languageSegments = segments.getOrDefault(language, List.of());
+            Set<String> tokens = Tokenizer.tokenize(term, language);
+            if (languageSegments.isEmpty() || tokens.isEmpty()) {
+                return WikidataPage.EMPTY;
+            }
+            PriorityQueue<Hit> top = new PriorityQueue<>(maxResults + 1, WORST_FIRST);
+            for (int s = 0; s < languageSegments.size(); s++) {
+                collect(languageSegments, s, tokens, top);
+            }
+            List<SearchResultItem> items = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Hit hit = top.poll();
+                items.add(languageSegments.get(hit.segment()).item(hit.ordinal()));
+            }
+            Collections.reverse(items);
+            return new WikidataPage(items, null);
+        } finally {
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void collect(List<IndexSegment> languageSegments, int s, Set<String> tokens, PriorityQueue<Hit> top) {
+        IndexSegment segment = languageSegments.get(s);
+        PostingList[] lists = new PostingList[tokens.size()];
+        int i = 0;
+        for (String token : tokens) {
+            lists[i] = segment.postings(token);
+            if (lists[i].size() == 0) {
+                return;
+            }
+            i++;
+        }
+        // Walk the rarest word's postings and look the others up, all in the mapped segment
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+        PostingList rarest = lists[0];
+        for (int p = 0; p < rarest.size(); p++) {
+            int posting = rarest.get(p);
+            int ordinal = posting >>> 2;
+            int score = FIELD_WEIGHTS[posting & 3];
+            for (int l = 1; l < lists.length && score > 0; l++) {
+                int other = lists[l].find(ordinal);
+                score = other < 0 ? 0 : score + FIELD_WEIGHTS[other & 3];
+            }
+            if (score == 0) {
+                continue;
+            }
+            Hit hit = new Hit(score, s, ordinal);
+            if (top.size() == maxResults && WORST_FIRST.compare(hit, top.peek()) <= 0) {
+                continue;
+            }
+            if (s > 0 && shadowed(languageSegments, s, ordinal)) {
+                continue;
+            }
+            top.add(hit);
+            if (top.size() > maxResults) {
+                top.poll();
+            }
+        }
+    }
+
+    private static boolean shadowed(List<IndexSegment> languageSegments, int s, int ordinal) {
+        IndexSegment segment = languageSegments.get(s);
+        for (int newer = 0; newer < s; newer++) {
+            if (languageSegments.get(newer).contains(segment, ordinal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Hit(int score, int segment, int ordinal) {
+    }
+}
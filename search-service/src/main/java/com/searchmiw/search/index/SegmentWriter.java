@@ -0,0 +1,218 @@
+package com.searchmiw.search.index;
+
+import com.searchmiw.search.cache.SearchResultCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the entities of one language and writes them as an immutable
+ * {@link IndexSegment} file, or merges two existing segments into one.
+ *
+ * <p>Layout: a header ({@link #MAGIC}, {@link #VERSION}, document count, term count),
+ * a table of absolute document offsets, a table of absolute term offsets, then the
+ * documents (id and description in {@link SearchResultCodec} string form) ordered by
+ * {@link #ID_ORDER}, then the terms in unsigned UTF-8 byte order, each a two-byte
+ * length, its bytes, a posting count and the postings. A posting is
+ * {@code ordinal << 2 | field}, ascending by ordinal, where field is the best place
+ * the word appears in that document.
+ */
+class SegmentWriter {
+
+    static final int MAGIC = 0x534D5749; // "SMWI"
+    static final int VERSION = 1;
+
+    static final int LABEL = 0;
+    static final int ALIAS = 1;
+    static final int DESCRIPTION = 2;
+
+    // Numeric order for Q-ids, so ties in relevance go to the older, usually better known entity
+    static final Comparator<String> ID_ORDER = Comparator.comparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder());
+
+    private static final int HEADER_BYTES = 16;
+
+    private final String language;
+    private final List<Document> documents = new ArrayList<>();
+
+    SegmentWriter(String language) {
+        this.language = language;
+    }
+
+    void add(String id, String label, List<String> aliases, String description) {
+        documents.add(new Document(id, label, aliases, description));
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    /**
+     * Writes the segment to a temporary file and atomically moves it into place,
+     * so a reader never maps a half-written segment.
+     */
+    void write(Path path) throws IOException {
+        documents.sort(Comparator.comparing(Document::id, ID_ORDER));
+        Map<String, Postings> terms = new HashMap<>();
+        List<String> ids = new ArrayList<>(documents.size());
+        List<String> descriptions = new ArrayList<>(documents.size());
+        for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+            Document document = documents.get(ordinal);
+            ids.add(document.id());
+            descriptions.add(document.description());
+            for (Map.Entry<String, Integer> term : document.terms(language).entrySet()) {
+                terms.computeIfAbsent(term.getKey(), key -> new Postings()).add(ordinal << 2 | term.getValue());
+            }
+        }
+        write(path, ids, descriptions, terms);
+    }
+
+    /**
+     * Writes two adjacent segments as one: every entity of the newer segment, and those
+     * of the older one that the newer does not replace. Stored fields and postings are
+     * carried over as they are, since labels and aliases are not kept in a segment.
+     * Like {@link #write(Path)}, the result is moved into place atomically, so it may
+     * replace one of the segments it was merged from.
+     */
+    static void merge(IndexSegment newer, IndexSegment older, Path path) throws IOException {
+        int[] newerOrdinals = new int[newer.docCount()];
+        int[] olderOrdinals = new int[older.docCount()];
+        List<String> ids = new ArrayList<>(newer.docCount() + older.docCount());
+        List<String> descriptions = new ArrayList<>(newer.docCount() + older.docCount());
+        // Both segments are in ID_ORDER, so a two-way merge keeps the result in it
+        int n = 0;
+        int o = 0;
+        while (n < newer.docCount() || o < older.docCount()) {
+            if (o < older.docCount() && newer.contains(older, o)) {
+                olderOrdinals[o++] = -1;
+            } else if (o == older.docCount()
+                    || (n < newer.docCount() && ID_ORDER.compare(newer.id(n), older.id(o)) < 0)) {
+                newerOrdinals[n] = ids.size();
+                ids.add(newer.id(n));
+                descriptions.add(newer.description(n++));
+            } else {
+                olderOrdinals[o] = ids.size();
+                ids.add(older.id(o));
+                descriptions.add(older.description(o++));
+            }
+        }
+        Map<String, Postings> terms = new HashMap<>();
+        carryPostings(newer, newerOrdinals, terms);
+        carryPostings(older, olderOrdinals, terms);
+        // Renumbered postings from two segments interleave; the ordinal is in the high bits
+        terms.values().forEach(postings -> Arrays.sort(postings.values, 0, postings.size));
+        write(path, ids, descriptions, terms);
+    }
+
+    private static void carryPostings(IndexSegment segment, int[] ordinals, Map<String, Postings> terms) {
+        for (int t = 0; t < segment.termCount(); t++) {
+            IndexSegment.PostingList list = segment.postings(t);
+            Postings merged = null;
+            for (int i = 0; i < list.size(); i++) {
+                int posting = list.get(i);
+                int ordinal = ordinals[posting >>> 2];
+                if (ordinal < 0) {
+                    continue;
+                }
+                if (merged == null) {
+                    merged = terms.computeIfAbsent(segment.term(t), key -> new Postings());
+                }
+                merged.add(ordinal << 2 | posting & 3);
+            }
+        }
+    }
+
+    private static void write(Path path, List<String> ids, List<String> descriptions,
+                              Map<String, Postings> terms) throws IOException {
+        ByteArrayOutputStream docBytes = new ByteArrayOutputStream();
+        DataOutputStream docData = new DataOutputStream(docBytes);
+        int[] docOffsets = new int[ids.size()];
+        for (int ordinal = 0; ordinal < ids.size(); ordinal++) {
+            docOffsets[ordinal] = docData.size();
+            SearchResultCodec.writeString(docData, ids.get(ordinal));
+            SearchResultCodec.writeString(docData, descriptions.get(ordinal));
+        }
+
+        List<Map.Entry<byte[], Postings>> sorted = new ArrayList<>(terms.size());
+        terms.forEach((term, postings) -> sorted.add(Map.entry(term.getBytes(StandardCharsets.UTF_8), postings)));
+        sorted.sort((a, b) -> Arrays.compareUnsigned(a.getKey(), b.getKey()));
+        ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+        DataOutputStream termData = new DataOutputStream(termBytes);
+        int[] termOffsets = new int[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            termOffsets[i] = termData.size();
+            byte[] term = sorted.get(i).getKey();
+            Postings postings = sorted.get(i).getValue();
+            termData.writeShort(term.length);
+            termData.write(term);
+            termData.writeInt(postings.size);
+            for (int p = 0; p < postings.size; p++) {
+                termData.writeInt(postings.values[p]);
+            }
+        }
+
+        long docStart = HEADER_BYTES + 4L * docOffsets.length + 4L * termOffsets.length;
+        long termStart = docStart + docBytes.size();
+        if (termStart + termBytes.size() > Integer.MAX_VALUE) {
+            throw new IOException("Segment too large, lower search.local.segment-size");
+        }
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(docOffsets.length);
+                out.writeInt(termOffsets.length);
+                for (int offset : docOffsets) {
+                    out.writeInt((int) docStart + offset);
+                }
+                for (int offset : termOffsets) {
+                    out.writeInt((int) termStart + offset);
+                }
+                docBytes.writeTo(out);
+                termBytes.writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private record Document(String id, String label, List<String> aliases, String description) {
+
+        // Each word once, with the best field it appears in
+        Map<String, Integer> terms(String language) {
+            Map<String, Integer> terms = new HashMap<>();
+            Tokenizer.tokenize(description, language).forEach(token -> terms.put(token, DESCRIPTION));
+            aliases.forEach(alias -> Tokenizer.tokenize(alias, language).forEach(token -> terms.put(token, ALIAS)));
+            Tokenizer.tokenize(label, language).forEach(token -> terms.put(token, LABEL));
+            return terms;
+        }
+    }
+
+    private static final class Postings {
+        int[] values = new int[4];
+        int size;
+
+        void add(int posting) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = posting;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.searchmiw.search.index;
+
+import com.searchmiw.search.model.Suggestion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable prefix trie of weighted strings for type-ahead.
+ * <p>
+ * Nodes are packed into parallel arrays in breadth-first order, so the children of a
+ * node are consecutive and found by binary search on their character, with no node
+ * objects or child maps. Each node also points at the heaviest string below it, so
+ * {@link #complete} takes the best completion of a subtree in one step and only walks
+ * the path down to it, queueing the subtrees it passes; it stops after {@code limit}
+ * completions instead of visiting the whole subtree of a short prefix.
+ */
+public final class SuggestTrie {
+
+    public static final SuggestTrie EMPTY = build(Map.of());
+
+    // Equal weights complete in alphabetical order
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingLong(Candidate::weight).reversed()
+            .thenComparingInt(Candidate::entry);
+
+    private final char[] edge;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] bestEntry;
+    private final int[] entry;
+    private final String[] texts;
+    private final long[] weights;
+
+    private SuggestTrie(int nodes, String[] texts, long[] weights) {
+        this.edge = new char[nodes];
+        this.firstChild = new int[nodes];
+        this.childCount = new int[nodes];
+        this.bestEntry = new int[nodes];
+        this.entry = new int[nodes];
+        this.texts = texts;
+        this.weights = weights;
+    }
+
+    public static SuggestTrie build(Map<String, Long> weighted) {
+        String[] texts = weighted.keySet().stream().filter(text -> !text.isEmpty()).sorted().toArray(String[]::new);
+        long[] weights = new long[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            weights[i] = weighted.get(texts[i]);
+        }
+        SuggestTrie trie = new SuggestTrie(countNodes(texts), texts, weights);
+        trie.fill();
+        return trie;
+    }
+
+    // One node per distinct prefix, plus the root
+    private static int countNodes(String[] sorted) {
+        int nodes = 1;
+        for (int i = 0; i < sorted.length; i++) {
+            int shared = i == 0 ? 0 : commonPrefix(sorted[i - 1], sorted[i]);
+            nodes += sorted[i].length() - shared;
+        }
+        return nodes;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // Breadth-first over ranges of the sorted texts sharing a prefix of length depth
+    private void fill() {
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.add(new int[]{0, texts.length, 0});
+        int next = 1;
+        for (int node = 0; !ranges.isEmpty(); node++) {
+            int[] range = ranges.poll();
+            int lo = range[0];
+            int hi = range[1];
+            int depth = range[2];
+            entry[node] = -1;
+            if (lo < hi && texts[lo].length() == depth) {
+                entry[node] = lo++;
+            }
+            firstChild[node] = next;
+            while (lo < hi) {
+                char c = texts[lo].charAt(depth);
+                int end = lo + 1;
+                while (end < hi && texts[end].charAt(depth) == c) {
+                    end++;
+                }
+                edge[next++] = c;
+                ranges.add(new int[]{lo, end, depth + 1});
+                lo = end;
+            }
+            childCount[node] = next - firstChild[node];
+        }
+        // Children always come after their parent, so one backward pass settles the maxima
+        for (int node = bestEntry.length - 1; node >= 0; node--) {
+            int best = entry[node];
+            for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+                if (best < 0 || BEST_FIRST.compare(candidate(bestEntry[child]), candidate(best)) < 0) {
+                    best = bestEntry[child];
+                }
+            }
+            bestEntry[node] = best;
+        }
+    }
+
+    private Candidate candidate(int entryIndex) {
+        return new Candidate(weights[entryIndex], entryIndex, -1);
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    /**
+     * The {@code limit} heaviest strings starting with the prefix, heaviest first.
+     */
+    public List<Suggestion> complete(String prefix, int limit) {
+        int node = find(prefix);
+        if (node < 0 || limit <= 0 || texts.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Suggestion> completions = new ArrayList<>(Math.min(limit, 16));
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+        queue.add(new Candidate(weights[bestEntry[node]], bestEntry[node], node));
+        while (!queue.isEmpty() && completions.size() < limit) {
+            Candidate candidate = queue.poll();
+            int best = candidate.entry();
+            completions.add(new Suggestion(texts[best], weights[best]));
+            if (candidate.node() < 0) {
+                continue;
+            }
+            // Everything else in the subtree hangs off the path down to the string just taken
+            int n = candidate.node();
+            while (entry[n] != best) {
+                if (entry[n] >= 0) {
+                    queue.add(candidate(entry[n]));
+                }
+                int next = -1;
+                for (int child = firstChild[n]; child < firstChild[n] + childCount[n]; child++) {
+                    if (bestEntry[child] == best) {
+                        next = child;
+                    } else {
+                        queue.add(new Candidate(weights[bestEntry[child]], bestEntry[child], child));
+                    }
+                }
+                n = next;
+            }
+            for (int child = firstChild[n]; child < firstChild[n] + childCount[n]; child++) {
+                queue.add(new Candidate(weights[bestEntry[child]], bestEntry[child], child));
+            }
+        }
+        return completions;
+    }
+
+    private int find(String prefix) {
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int from = firstChild[node];
+            int index = Arrays.binarySearch(edge, from, from + childCount[node], prefix.charAt(i));
+            if (index < 0) {
+                return -1;
+            }
+            node = index;
+        }
+        return node;
+    }
+
+    // The heaviest string of a subtree, or a single string when node is -1
+    private record Candidate(long weight, int entry, int node) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.searchmiw.search.index;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams entities out of a Wikidata JSON dump without loading it whole.
+ * <p>
+ * Accepts the official dump layout (one JSON array of entities) as well as filtered
+ * subsets with one entity per line, optionally gzip-compressed ({@code .gz}). Only the
+ * id and the labels, descriptions and aliases in the wanted languages are kept; claims,
+ * sitelinks and everything else are skipped token by token.
+ */
+public class WikidataDumpReader {
+
+    private final JsonFactory jsonFactory;
+    private final Set<String> languages;
+
+    public WikidataDumpReader(JsonFactory jsonFactory, Set<String> languages) {
+        this.jsonFactory = jsonFactory;
+        this.languages = languages;
+    }
+
+    /**
+     * @return the number of entities passed to the consumer
+     */
+    public long read(Path dump, Consumer<DumpEntity> consumer) throws IOException {
+        try (InputStream in = open(dump); JsonParser parser = jsonFactory.createParser(in)) {
+            long count = 0;
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    DumpEntity entity = readEntity(parser);
+                    if (entity.id() != null) {
+                        consumer.accept(entity);
+                        count++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+                token = parser.nextToken();
+            }
+            return count;
+        }
+    }
+
+    private static InputStream open(Path dump) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(dump), 1 << 16);
+        return dump.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    private DumpEntity readEntity(JsonParser parser) throws IOException {
+        String id = null;
+        Map<String, String> labels = Map.of();
+        Map<String, String> descriptions = Map.of();
+        Map<String, List<String>> aliases = Map.of();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            if ("id".equals(field) && value == JsonToken.VALUE_STRING) {
+                id = parser.getText();
+            } else if ("labels".equals(field) && value == JsonToken.START_OBJECT) {
+                labels = readTerms(parser);
+            } else if ("descriptions".equals(field) && value == JsonToken.START_OBJECT) {
+                descriptions = readTerms(parser);
+            } else if ("aliases".equals(field) && value == JsonToken.START_OBJECT) {
+                aliases = readAliases(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new DumpEntity(id, labels, descriptions, aliases);
+    }
+
+    // {"en": {"language": "en", "value": "..."}, ...}
+    private Map<String, String> readTerms(JsonParser parser) throws IOException {
+        Map<String, String> terms = new HashMap<>();
+        String language;
+        while ((language = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            if (!languages.contains(language)) {
+                parser.skipChildren();
+                continue;
+            }
+            String text = readValue(parser);
+            if (text != null) {
+                terms.put(language, text);
+            }
+        }
+        return terms;
+    }
+
+    // {"en": [{"language": "en", "value": "..."}, ...], ...}
+    private Map<String, List<String>> readAliases(JsonParser parser) throws IOException {
+        Map<String, List<String>> aliases = new HashMap<>();
+        String language;
+        while ((language = parser.nextFieldName()) != null) {
+            if (parser.nextToken() != JsonToken.START_ARRAY || !languages.contains(language)) {
+                parser.skipChildren();
+                continue;
+            }
+            List<String> values = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                String text = token == JsonToken.START_OBJECT ? readValue(parser) : null;
+                if (text != null) {
+                    values.add(text);
+                } else if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                }
+            }
+            aliases.put(language, values);
+        }
+        return aliases;
+    }
+
+    private static String readValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String text = null;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            if ("value".equals(field) && value == JsonToken.VALUE_STRING) {
+                text = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return text;
+    }
+}
@@ -0,0 +1,13 @@
+package com.searchmiw.search.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchRequest {
+    private String query;
+    private String language = "en";
+}
@@ -0,0 +1,17 @@
+package com.searchmiw.search.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What wbgetentities returned for one entity in one language: its aliases, the
+ * Commons URL of its image (P18), and its claims as property id to values, keeping
+ * only the best-ranked statements. {@code missing} marks an id Wikidata does not know.
+ */
+public record EntityDetails(String id, List<String> aliases, String image,
+                            Map<String, List<String>> claims, boolean missing) {
+
+    public static EntityDetails missing(String id) {
+        return new EntityDetails(id, List.of(), null, Map.of(), true);
+    }
+}
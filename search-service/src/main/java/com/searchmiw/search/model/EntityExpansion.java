@@ -0,0 +1,16 @@
+package com.searchmiw.search.model;
+
+import java.util.Locale;
+
+/**
+ * Entity details a search can be asked to add to its results with {@code expand=}.
+ */
+public enum EntityExpansion {
+    ALIASES,
+    IMAGE,
+    CLAIMS;
+
+    public static EntityExpansion parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -1,5 +1,7 @@
 package com.searchmiw.search.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,7 +10,7 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class SearchResult {
@@ -16,4 +18,19 @@ public class SearchResult {
     private List<SearchResultItem> results;
     private long totalResults;
     private long searchTime; // in milliseconds
+    private boolean partial; // true when some Wikidata sub-queries failed, timed out or were answered from stale data
+    @JsonIgnore
+    private Integer continueOffset; // Wikidata offset where the full query's results continue, null when exhausted
+
+    // Only set on paged responses
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer offset;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer limit;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    // Known query the search was rewritten to when the one asked for looked misspelled
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String didYouMean;
 }
@@ -1,10 +1,14 @@
 package com.searchmiw.search.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+import java.util.Map;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -14,4 +18,16 @@ public class SearchResultItem {
     private String title;
     private String description;
     private String url;
+
+    // Only set when the search was asked to expand them
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> aliases;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String image;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, List<String>> claims; // property id to values, e.g. P31 -> [Q5]
+
+    public SearchResultItem(String id, String title, String description, String url) {
+        this(id, title, description, url, null, null, null);
+    }
 }
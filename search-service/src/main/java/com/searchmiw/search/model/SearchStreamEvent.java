@@ -0,0 +1,44 @@
+package com.searchmiw.search.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One event of a streamed search: either a batch of new results from a finished
+ * sub-query, or the closing summary.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchStreamEvent {
+
+    public static final String RESULTS = "results";
+    public static final String SUMMARY = "summary";
+
+    private String type;
+    private String subQuery; // results only: the sub-query these results came from
+    private List<SearchResultItem> results; // results only: entities not sent before
+    private Long totalResults; // summary only
+    private Long searchTime; // summary only, in milliseconds
+    private Boolean partial; // summary only
+
+    public static SearchStreamEvent results(String subQuery, List<SearchResultItem> results) {
+        return SearchStreamEvent.builder().type(RESULTS).subQuery(subQuery).results(results).build();
+    }
+
+    public static SearchStreamEvent summary(long totalResults, long searchTime, boolean partial) {
+        return SearchStreamEvent.builder()
+                .type(SUMMARY)
+                .totalResults(totalResults)
+                .searchTime(searchTime)
+                .partial(partial)
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.searchmiw.search.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+    private String text;
+    private long weight; // how often the query was searched, the ranking key
+}
@@ -0,0 +1,21 @@
+package com.searchmiw.search.model;
+
+import java.util.List;
+
+/**
+ * One page of wbsearchentities results. {@code continueOffset} is the response's
+ * search-continue value, the offset of the next page, or null when there is none.
+ * {@code stale} marks a page answered from retained data because Wikidata could not be asked.
+ */
+public record WikidataPage(List<SearchResultItem> items, Integer continueOffset, boolean stale) {
+
+    public static final WikidataPage EMPTY = new WikidataPage(List.of(), null);
+
+    public WikidataPage(List<SearchResultItem> items, Integer continueOffset) {
+        this(items, continueOffset, false);
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
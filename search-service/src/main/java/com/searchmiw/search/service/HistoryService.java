@@ -1,9 +1,14 @@
 package com.searchmiw.search.service;
 
+import com.searchmiw.search.model.PopularQuery;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
 
 @Service
 @Slf4j
@@ -22,22 +27,42 @@ public class HistoryService {
                 .build();
     }
 
-    public void recordSearchHistory(Long userId, String query) {
+    public Mono<Void> recordSearchHistory(Long userId, String query, String language) {
         if (userId == null) {
-            return; // Don't record if no user ID provided
+            return Mono.empty(); // Don't record if no user ID provided
         }
 
         log.info("Recording search history for user: {}, query: {}", userId, query);
-        webClient.post()
+        return webClient.post()
                 .uri(uriBuilder -> uriBuilder
                         .path("/api/history/user/{userId}")
                         .queryParam("query", query)
+                        .queryParamIfPresent("language", Optional.ofNullable(language))
                         .build(userId))
                 .retrieve()
                 .toBodilessEntity()
-                .subscribe(
-                    response -> log.info("Successfully recorded search history"),
-                    error -> log.error("Error recording search history: {}", error.getMessage())
-                );
+                .doOnSuccess(response -> log.info("Successfully recorded search history"))
+                .onErrorResume(error -> {
+                    // History is best effort and must never fail the search itself
+                    log.error("Error recording search history: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    public Flux<PopularQuery> fetchPopularQueries(String language, int days, int limit) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/history/popular")
+                        .queryParam("language", language)
+                        .queryParam("days", days)
+                        .queryParam("limit", limit)
+                        .build())
+                .retrieve()
+                .bodyToFlux(PopularQuery.class)
+                .onErrorResume(error -> {
+                    log.warn("Could not fetch popular queries for language {}: {}", language, error.getMessage());
+                    return Flux.empty();
+                });
     }
 }
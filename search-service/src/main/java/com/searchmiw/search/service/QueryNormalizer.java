@@ -0,0 +1,60 @@
+package com.searchmiw.search.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Brings a query into canonical form before it is used as a cache key or split
+ * into per-word sub-queries, so that spelling variants such as " Einstein " and
+ * "EINSTEIN" share one cache entry and one upstream fan-out.
+ * <p>
+ * Case is only lowercased with the query language's rules, which is not full Unicode
+ * case folding: "STRASSE" and "straße" stay distinct, as do the sigma forms, and the
+ * Turkish and Azerbaijani rules lowercase "I" to a dotless "ı", so the same text can
+ * normalize differently per language. The normalized query is also what Wikidata is
+ * asked for, so folding further would change the upstream search, not just the key.
+ */
+@Component
+public class QueryNormalizer {
+
+    // Unicode-aware so non-breaking and other exotic spaces also separate words
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+", Pattern.UNICODE_CHARACTER_CLASS);
+
+    private final Set<String> caseSensitiveLanguages;
+    private final Set<String> keepDuplicateWordsLanguages;
+
+    public QueryNormalizer(
+            @Value("${search.normalization.case-sensitive-languages:}") Set<String> caseSensitiveLanguages,
+            @Value("${search.normalization.keep-duplicate-words-languages:}") Set<String> keepDuplicateWordsLanguages) {
+        this.caseSensitiveLanguages = caseSensitiveLanguages;
+        this.keepDuplicateWordsLanguages = keepDuplicateWordsLanguages;
+    }
+
+    /**
+     * Applies Unicode NFC, whitespace collapsing, lowercasing by the language's rules
+     * and duplicate-word removal. The last two can be switched off per language.
+     */
+    public String normalize(String query, String language) {
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFC).strip();
+        if (normalized.isEmpty()) {
+            return normalized;
+        }
+        if (!caseSensitiveLanguages.contains(language)) {
+            // The language's own rules matter here, e.g. the Turkish dotted and dotless i
+            normalized = normalized.toLowerCase(Locale.forLanguageTag(language));
+        }
+
+        String[] words = WHITESPACE.split(normalized);
+        if (keepDuplicateWordsLanguages.contains(language)) {
+            return String.join(" ", words);
+        }
+        return String.join(" ", new LinkedHashSet<>(Arrays.asList(words)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.searchmiw.search.service;
+
+import com.searchmiw.search.model.SearchResultItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the results of a search's sub-queries into one relevance-ordered list.
+ * <p>
+ * Every list an entity appears in adds {@code weight / (RANK_OFFSET + position)} to its
+ * score, so entities returned by several sub-queries and near the top of each rank
+ * higher. The list for the full query (always the first one) is weighted by
+ * {@code full-query-boost}. Only the best {@code max-results} are kept, selected with a
+ * bounded heap instead of sorting every candidate.
+ */
+@Component
+public class ResultRanker {
+
+    // Flattens the gap between the first few positions so a single list cannot dominate
+    private static final int RANK_OFFSET = 10;
+
+    private static final Comparator<Candidate> WORST_FIRST = Comparator
+            .comparingDouble(Candidate::score)
+            .thenComparing(Comparator.comparingInt(Candidate::order).reversed());
+
+    private final double fullQueryBoost;
+    private final int maxResults;
+
+    public ResultRanker(@Value("${search.ranking.full-query-boost:2.0}") double fullQueryBoost,
+                        @Value("${search.ranking.max-results:100}") int maxResults) {
+        this.fullQueryBoost = fullQueryBoost;
+        this.maxResults = maxResults;
+    }
+
+    public record Ranking(List<SearchResultItem> items, int totalMatches) {
+    }
+
+    /**
+     * @param parts results per sub-query, the full query's first
+     */
+    public Ranking rank(List<List<SearchResultItem>> parts) {
+        Map<String, Candidate> candidates = new HashMap<>();
+        for (int list = 0; list < parts.size(); list++) {
+            double weight = list == 0 ? fullQueryBoost : 1.0;
+            List<SearchResultItem> part = parts.get(list);
+            for (int position = 0; position < part.size(); position++) {
+                SearchResultItem item = part.get(position);
+                double contribution = weight / (RANK_OFFSET + position + 1);
+                Candidate existing = candidates.get(item.getId());
+                candidates.put(item.getId(), existing == null
+                        ? new Candidate(item, contribution, candidates.size())
+                        : existing.plus(contribution));
+            }
+        }
+        return new Ranking(topK(candidates.values(), maxResults), candidates.size());
+    }
+
+    public int maxResults() {
+        return maxResults;
+    }
+
+    private static List<SearchResultItem> topK(Iterable<Candidate> candidates, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(k, WORST_FIRST);
+        for (Candidate candidate : candidates) {
+            if (heap.size() < k) {
+                heap.add(candidate);
+            } else if (WORST_FIRST.compare(candidate, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+        List<SearchResultItem> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().item());
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    // order is when the entity was first seen, which breaks ties in sub-query priority order
+    private record Candidate(SearchResultItem item, double score, int order) {
+        Candidate plus(double contribution) {
+            return new Candidate(item, score + contribution, order);
+        }
+    }
+}
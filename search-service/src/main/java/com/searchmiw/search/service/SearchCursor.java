@@ -0,0 +1,33 @@
+package com.searchmiw.search.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a page in a search's ranked results. Clients only ever see the
+ * encoded form and hand it back unchanged to get the next page.
+ */
+public record SearchCursor(int offset, int limit) {
+
+    private static final String VERSION = "v1";
+
+    public String encode() {
+        String plain = VERSION + ":" + offset + ":" + limit;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not a cursor issued by this service
+     */
+    public static SearchCursor decode(String encoded) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split(":");
+        if (parts.length != 3 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Unrecognised search cursor");
+        }
+        SearchCursor cursor = new SearchCursor(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        if (cursor.offset() < 0 || cursor.limit() <= 0) {
+            throw new IllegalArgumentException("Unrecognised search cursor");
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,13 @@
+package com.searchmiw.search.service;
+
+/**
+ * Where {@link SearchService} looks terms up, set with {@code search.mode}.
+ */
+public enum SearchMode {
+    /** Wikidata's API only. */
+    REMOTE,
+    /** The local index only; Wikidata is never called. */
+    LOCAL,
+    /** The local index first; terms it has no hits for go to Wikidata. */
+    HYBRID
+}
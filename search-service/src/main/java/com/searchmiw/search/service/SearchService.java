@@ -1,37 +1,146 @@
 package com.searchmiw.search.service;
 
+import com.searchmiw.search.cache.CoalescingCache;
+import com.searchmiw.search.cache.EntityKey;
+import com.searchmiw.search.client.AdaptiveConcurrencyLimiter;
+import com.searchmiw.search.client.RequestHedger;
+import com.searchmiw.search.client.UpstreamCircuitBreaker;
+import com.searchmiw.search.client.UpstreamSaturatedException;
+import com.searchmiw.search.client.UpstreamUnavailableException;
+import com.searchmiw.search.cache.NegativeTermFilter;
+import com.searchmiw.search.cache.OffHeapSearchCache;
+import com.searchmiw.search.cache.SearchKey;
+import com.searchmiw.search.config.CacheConfig;
+import com.searchmiw.search.index.LocalSearchIndex;
+import com.searchmiw.search.model.BatchSearchRequest;
+import com.searchmiw.search.model.EntityDetails;
+import com.searchmiw.search.model.EntityExpansion;
 import com.searchmiw.search.model.SearchResult;
 import com.searchmiw.search.model.SearchResultItem;
-import com.searchmiw.search.model.WikidataResponse;
-import com.searchmiw.search.model.WikidataSearchEntity;
+import com.searchmiw.search.model.SearchStreamEvent;
+import com.searchmiw.search.model.WikidataPage;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Slf4j
 public class SearchService {
 
+    private static final String SEARCH_ENDPOINT = "wbsearchentities";
+    private static final String ENTITIES_ENDPOINT = "wbgetentities";
+
+    // Identity marker for a sub-query that failed or timed out, as opposed to one with no hits
+    private static final WikidataPage FAILED = new WikidataPage(List.of(), null);
+
     private final WebClient.Builder webClientBuilder;
     private WebClient webClient;
+    private final QueryNormalizer queryNormalizer;
+    private final CoalescingCache<SearchKey, SearchResult> searchCache;
+    private final CoalescingCache<SearchKey, WikidataPage> termCache;
+    private final CoalescingCache<SearchKey, WikidataPage> staleTermCache;
+    private final CoalescingCache<EntityKey, EntityDetails> entityCache;
+    private final OffHeapSearchCache offHeapCache;
+    private final NegativeTermFilter negativeTermFilter;
+    private final WikidataResponseDecoder responseDecoder;
+    private final WikidataEntityDecoder entityDecoder;
+    private final ResultRanker resultRanker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RequestHedger requestHedger;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final LocalSearchIndex localIndex;
+    private final SuggestionService suggestionService;
     
     @Value("${wikidata.api.url}")
     private String wikidataApiUrl;
 
+    // Rewrite queries that look misspelled to the nearest known query before the cache lookup
+    @Value("${search.fuzzy.enabled:true}")
+    private boolean fuzzyEnabled = true;
+
+    // Whether terms are looked up in Wikidata, the local index, or the index first
+    @Value("${search.mode:remote}")
+    private SearchMode searchMode = SearchMode.REMOTE;
+
+    // Maximum number of Wikidata sub-queries in flight for a single search
+    @Value("${search.fanout.parallelism:4}")
+    private int fanOutParallelism = 4;
+
+    // Number of ranked results returned when the request does not ask for a K
+    @Value("${search.ranking.default-top-k:25}")
+    private int defaultTopK = 25;
+
+    // Largest page a client may ask for
+    @Value("${search.pagination.max-limit:50}")
+    private int maxPageSize = 50;
+
+    // Deepest position reachable by paging; Wikidata is not continued past it
+    @Value("${search.pagination.max-depth:500}")
+    private int maxPagingDepth = 500;
+
+    // Maximum number of Wikidata calls in flight for one batch request
+    @Value("${search.batch.parallelism:8}")
+    private int batchParallelism = 8;
+
+    // Time budget for fetching a batch's terms
+    @Value("${search.batch.deadline:30s}")
+    private Duration batchDeadline = Duration.ofSeconds(30);
+
+    // Ids per wbgetentities call when expanding results; Wikidata accepts at most 50
+    @Value("${search.expand.batch-size:50}")
+    private int expandBatchSize = 50;
+
+    // Time budget for the whole fan-out; sub-queries still pending are dropped
+    @Value("${search.fanout.deadline:5s}")
+    private Duration fanOutDeadline = Duration.ofSeconds(5);
+
     @Autowired
-    public SearchService(WebClient.Builder webClientBuilder) {
+    public SearchService(WebClient.Builder webClientBuilder, QueryNormalizer queryNormalizer,
+                         CacheManager cacheManager, OffHeapSearchCache offHeapCache,
+                         NegativeTermFilter negativeTermFilter, WikidataResponseDecoder responseDecoder,
+                         WikidataEntityDecoder entityDecoder, ResultRanker resultRanker, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                         RequestHedger requestHedger, UpstreamCircuitBreaker circuitBreaker,
+                         LocalSearchIndex localIndex, SuggestionService suggestionService,
+                         MeterRegistry meterRegistry) {
+        this.localIndex = localIndex;
+        this.suggestionService = suggestionService;
+        this.requestHedger = requestHedger;
+        this.circuitBreaker = circuitBreaker;
+        this.resultRanker = resultRanker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.negativeTermFilter = negativeTermFilter;
+        this.responseDecoder = responseDecoder;
+        this.entityDecoder = entityDecoder;
+        this.offHeapCache = offHeapCache;
+        this.queryNormalizer = queryNormalizer;
+        this.searchCache = new CoalescingCache<>(cacheManager.getCache(CacheConfig.SEARCH_CACHE), meterRegistry);
+        this.termCache = new CoalescingCache<>(cacheManager.getCache(CacheConfig.TERM_CACHE), meterRegistry);
+        this.staleTermCache = new CoalescingCache<>(cacheManager.getCache(CacheConfig.STALE_TERM_CACHE), meterRegistry);
+        this.entityCache = new CoalescingCache<>(cacheManager.getCache(CacheConfig.ENTITY_CACHE), meterRegistry);
         this.webClientBuilder = webClientBuilder;
         // Initialize lazily to avoid issues in tests
     }
@@ -43,102 +152,558 @@ public class SearchService {
         return webClient;
     }
 
-    @Cacheable(value = "wikidata-searches", key = "#query + '-' + #language")
-    public SearchResult search(String query, String language) {
-        log.info("Searching Wikidata for query: {} in language: {}", query, language);
+    public Mono<SearchResult> search(String query, String language) {
+        return search(query, language, null);
+    }
 
-        Instant startTime = Instant.now();
+    /**
+     * Searches Wikidata and returns the {@code topK} most relevant results, or
+     * {@code search.ranking.default-top-k} when not given. The cache holds the ranked
+     * list up to {@code search.ranking.max-results}, so any K is served from one entry.
+     * A query that looks misspelled is searched as the nearest known query instead,
+     * which is returned in {@code didYouMean}.
+     */
+    public Mono<SearchResult> search(String query, String language, Integer topK) {
+        return search(query, language, topK, false);
+    }
 
-        String[] words = query.trim().split("\\s+");
-        Map<String, SearchResultItem> uniqueResults = new LinkedHashMap<>();
-        final long[] totalSearchTime = {0}; // Use array to allow mutation in lambda
-
-        java.util.function.Consumer<String> doSearch = q -> {
-            String url = UriComponentsBuilder.fromHttpUrl(wikidataApiUrl)
-                    .queryParam("action", "wbsearchentities")
-                    .queryParam("search", q)
-                    .queryParam("language", language)
-                    .queryParam("uselang", language)
-                    .queryParam("format", "json")
-                    .queryParam("limit", 100)
-                    .build()
-                    .toUriString();
-            Instant partStart = Instant.now();
-            try {
-                WikidataResponse response = getWebClient().get()
-                        .uri(url)
-                        .retrieve()
-                        .bodyToMono(WikidataResponse.class)
-                        .block();
-                long partTime = Duration.between(partStart, Instant.now()).toMillis();
-                totalSearchTime[0] += partTime;
-                if (response != null && response.getSearch() != null) {
-                    response.getSearch().forEach(entity -> {
-                        SearchResultItem item = convertToSearchResultItem(entity);
-                        uniqueResults.putIfAbsent(item.getId(), item);
-                    });
-                }
-            } catch (Exception e) {
-                log.error("Error searching Wikidata for '{}': {}", q, e.getMessage());
-                long partTime = Duration.between(partStart, Instant.now()).toMillis();
-                totalSearchTime[0] += partTime;
+    /**
+     * Like {@link #search(String, String, Integer)}, but an {@code exact} search is never
+     * rewritten to a known query, for the "search instead for" link of a corrected one.
+     */
+    public Mono<SearchResult> search(String query, String language, Integer topK, boolean exact) {
+        return Mono.defer(() -> {
+            // Cache and upstream work on the canonical form; the caller still sees its own query
+            SearchKey key = resolve(query, language, exact);
+            int k = topK != null ? topK : defaultTopK;
+            return searchCache.get(key, () -> promoteOrFetch(key))
+                    .map(result -> corrected(forRequest(result, query, k), query, key));
+        });
+    }
+
+    /**
+     * Searches several languages at once, in order of preference, and merges the results
+     * by entity id. Each language is an ordinary {@link #search} with its own cache entry.
+     * The preferred language's results rank higher, and where an entity was found in
+     * several languages the most preferred one's text is kept, with a missing
+     * description filled from the next language that has one.
+     */
+    public Mono<SearchResult> searchLanguages(String query, List<String> languages, Integer topK) {
+        return searchLanguages(query, languages, topK, false);
+    }
+
+    public Mono<SearchResult> searchLanguages(String query, List<String> languages, Integer topK, boolean exact) {
+        List<String> ordered = List.copyOf(new LinkedHashSet<>(languages));
+        if (ordered.size() == 1) {
+            return search(query, ordered.get(0), topK, exact);
+        }
+        return Mono.defer(() -> {
+            Instant startTime = Instant.now();
+            return Flux.fromIterable(ordered)
+                    .flatMapSequential(language -> search(query, language, resultRanker.maxResults(), exact))
+                    .collectList()
+                    .map(results -> mergeLanguages(query, results, topK != null ? topK : defaultTopK,
+                            Duration.between(startTime, Instant.now()).toMillis()));
+        });
+    }
+
+    private SearchResult mergeLanguages(String query, List<SearchResult> results, int topK, long searchTime) {
+        List<List<SearchResultItem>> parts = results.stream()
+                .map(result -> result.getResults() != null ? result.getResults() : List.<SearchResultItem>of())
+                .toList();
+        // The ranker keeps the first list's item for an id, so the preferred language's text wins
+        ResultRanker.Ranking ranking = resultRanker.rank(parts);
+        Map<String, String> descriptions = new HashMap<>();
+        parts.forEach(part -> part.forEach(item -> {
+            if (item.getDescription() != null) {
+                descriptions.putIfAbsent(item.getId(), item.getDescription());
             }
-        };
+        }));
+        List<SearchResultItem> merged = ranking.items().stream()
+                .limit(Math.max(topK, 0))
+                .map(item -> item.getDescription() != null ? item : new SearchResultItem(item.getId(),
+                        item.getTitle(), descriptions.get(item.getId()), item.getUrl()))
+                .toList();
+        return SearchResult.builder()
+                .query(query)
+                .results(merged)
+                .totalResults(ranking.totalMatches())
+                .searchTime(searchTime)
+                .partial(results.stream().anyMatch(SearchResult::isPartial))
+                .didYouMean(results.stream().map(SearchResult::getDidYouMean)
+                        .filter(Objects::nonNull).findFirst().orElse(null))
+                .build();
+    }
 
-        doSearch.accept(query);
+    /**
+     * Adds the requested details to a search's results. Details come from the entity
+     * cache, shared by all searches; ids missing from it are fetched with wbgetentities
+     * in batches of up to {@code search.expand.batch-size}, all batches at once.
+     * Results whose details could not be fetched are left as they are and the search
+     * is flagged partial.
+     */
+    public Mono<SearchResult> expand(SearchResult result, String language, Set<EntityExpansion> expansions) {
+        if (expansions.isEmpty() || result.getResults() == null || result.getResults().isEmpty()) {
+            return Mono.just(result);
+        }
+        return Mono.defer(() -> {
+            List<String> ids = result.getResults().stream().map(SearchResultItem::getId).distinct().toList();
+            Map<String, Mono<Map<String, EntityDetails>>> batches = entityBatches(ids, language);
+            return Flux.fromIterable(ids)
+                    .flatMap(id -> entityCache.get(new EntityKey(id, language), () -> {
+                                Mono<Map<String, EntityDetails>> batch = batches.get(id);
+                                // Evicted between planning the batches and this lookup
+                                if (batch == null) {
+                                    batch = fetchEntities(List.of(id), language);
+                                }
+                                return batch.mapNotNull(found -> found.get(id));
+                            })
+                            .map(details -> Map.entry(id, details))
+                            .onErrorResume(e -> Mono.empty()), ids.size())
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .map(details -> withDetails(result, details, expansions, ids.size()));
+        });
+    }
+
+    private Map<String, Mono<Map<String, EntityDetails>>> entityBatches(List<String> ids, String language) {
+        List<String> uncached = ids.stream()
+                .filter(id -> entityCache.peek(new EntityKey(id, language)) == null)
+                .toList();
+        Map<String, Mono<Map<String, EntityDetails>>> batches = new HashMap<>();
+        for (int from = 0; from < uncached.size(); from += expandBatchSize) {
+            List<String> batch = uncached.subList(from, Math.min(from + expandBatchSize, uncached.size()));
+            // Shared by the batch's ids; never sent if all of them join loads already in flight
+            Mono<Map<String, EntityDetails>> fetch = fetchEntities(batch, language).cache();
+            batch.forEach(id -> batches.put(id, fetch));
+        }
+        return batches;
+    }
+
+    private static SearchResult withDetails(SearchResult result, Map<String, EntityDetails> details,
+                                            Set<EntityExpansion> expansions, int expected) {
+        List<SearchResultItem> items = result.getResults().stream()
+                .map(item -> {
+                    EntityDetails found = details.get(item.getId());
+                    return found != null ? expanded(item, found, expansions) : item;
+                })
+                .toList();
+        return result.toBuilder()
+                .results(items)
+                .partial(result.isPartial() || details.size() < expected)
+                .build();
+    }
+
+    // A new item, as the one passed in may be shared through the search cache
+    private static SearchResultItem expanded(SearchResultItem item, EntityDetails details,
+                                             Set<EntityExpansion> expansions) {
+        return SearchResultItem.builder()
+                .id(item.getId())
+                .title(item.getTitle())
+                .description(item.getDescription())
+                .url(item.getUrl())
+                .aliases(expansions.contains(EntityExpansion.ALIASES) ? details.aliases() : null)
+                .image(expansions.contains(EntityExpansion.IMAGE) ? details.image() : null)
+                .claims(expansions.contains(EntityExpansion.CLAIMS) ? details.claims() : null)
+                .build();
+    }
+
+    private SearchKey resolve(String query, String language, boolean exact) {
+        SearchKey key = new SearchKey(queryNormalizer.normalize(query, language), language);
+        if (exact || !fuzzyEnabled || searchCache.peek(key) != null) {
+            return key;
+        }
+        String correction = suggestionService.correct(key.query(), language);
+        if (correction == null) {
+            return key;
+        }
+        log.info("Searching '{}' as the known query '{}'", key.query(), correction);
+        return new SearchKey(correction, language);
+    }
 
+    private SearchResult corrected(SearchResult result, String query, SearchKey key) {
+        if (key.query().equals(queryNormalizer.normalize(query, key.language()))) {
+            return result;
+        }
+        return result.toBuilder().didYouMean(key.query()).build();
+    }
+
+    /**
+     * Returns one page of a search's ranked results. Pages are sliced from the cached
+     * result; a page reaching past it continues the full query into deeper Wikidata
+     * results, up to {@code search.pagination.max-depth}, and caches the longer list.
+     * Offsets past that depth, whether asked for or carried in a cursor, are clamped
+     * to it and answer with an empty last page.
+     */
+    public Mono<SearchResult> searchPage(String query, String language, int offset, int limit) {
+        return searchPage(query, language, offset, limit, false);
+    }
+
+    public Mono<SearchResult> searchPage(String query, String language, int offset, int limit, boolean exact) {
+        return Mono.defer(() -> {
+            SearchKey key = resolve(query, language, exact);
+            // Clamped before any arithmetic, so from + size cannot overflow
+            int from = Math.min(Math.max(offset, 0), maxPagingDepth);
+            int size = Math.min(Math.max(limit, 1), maxPageSize);
+            return searchCache.get(key, () -> promoteOrFetch(key))
+                    .flatMap(cached -> {
+                        if (!canContinue(cached, from + size)) {
+                            return Mono.just(cached);
+                        }
+                        return extend(key, cached, from + size)
+                                .doOnNext(extended -> searchCache.put(key, extended));
+                    })
+                    .map(result -> corrected(page(result, query, from, size), query, key));
+        });
+    }
+
+    private boolean canContinue(SearchResult result, int needed) {
+        int fetched = result.getResults() != null ? result.getResults().size() : 0;
+        return fetched < needed && fetched < maxPagingDepth && result.getContinueOffset() != null;
+    }
+
+    private Mono<SearchResult> extend(SearchKey key, SearchResult result, int needed) {
+        if (!canContinue(result, needed)) {
+            return Mono.just(result);
+        }
+        log.info("Continuing '{}' from Wikidata offset {}", key, result.getContinueOffset());
+        return fetchTerm(key.query(), key.language(), result.getContinueOffset())
+                .map(next -> append(result, next))
+                .flatMap(extended -> extend(key, extended, needed))
+                .onErrorResume(e -> {
+                    // Serve what we have; the next cursor still points past it
+                    log.error("Could not continue '{}' into deeper results: {}", key, e.getMessage());
+                    return Mono.just(result);
+                });
+    }
+
+    private SearchResult append(SearchResult result, WikidataPage next) {
+        List<SearchResultItem> results = new ArrayList<>(result.getResults());
+        Set<String> ids = new HashSet<>();
+        results.forEach(item -> ids.add(item.getId()));
+        int before = results.size();
+        for (SearchResultItem item : next.items()) {
+            // Deeper pages can repeat entities the ranked merge already placed
+            if (ids.add(item.getId())) {
+                results.add(item);
+            }
+        }
+        return result.toBuilder()
+                .results(results)
+                .totalResults(result.getTotalResults() + results.size() - before)
+                .continueOffset(next.continueOffset())
+                .build();
+    }
+
+    private SearchResult page(SearchResult full, String query, int offset, int limit) {
+        List<SearchResultItem> results = full.getResults() != null ? full.getResults() : Collections.emptyList();
+        int from = Math.min(offset, results.size());
+        int to = from + Math.min(limit, results.size() - from);
+        boolean more = to < results.size() || canContinue(full, to + 1);
+        return full.toBuilder()
+                .query(query)
+                .results(List.copyOf(results.subList(from, to)))
+                .offset(offset)
+                .limit(limit)
+                // Continue from what was actually served, in case deeper results could not be fetched
+                .nextCursor(more ? new SearchCursor(to, limit).encode() : null)
+                .build();
+    }
+
+    private SearchResult forRequest(SearchResult cached, String query, int topK) {
+        List<SearchResultItem> results = cached.getResults();
+        boolean trim = results != null && results.size() > topK;
+        if (!trim && query.equals(cached.getQuery())) {
+            return cached;
+        }
+        return cached.toBuilder()
+                .query(query)
+                .results(trim ? List.copyOf(results.subList(0, Math.max(topK, 0))) : results)
+                .build();
+    }
+
+    private Mono<SearchResult> promoteOrFetch(SearchKey key) {
+        // A result evicted from the heap tier is moved back up instead of refetched
+        SearchResult demoted = offHeapCache.takeIfPresent(key);
+        if (demoted != null) {
+            return Mono.just(demoted);
+        }
+        return fetch(key.query(), key.language());
+    }
+
+    /**
+     * Reloads a cached search in the background. While this runs the cache keeps
+     * serving the previous value, and if Wikidata fails during the reload the
+     * previous complete result is kept instead of being replaced by a partial one.
+     */
+    public Mono<SearchResult> reload(SearchKey key, SearchResult previous) {
+        return fetch(key.query(), key.language())
+                .map(fresh -> {
+                    if (fresh.isPartial() && previous != null && !previous.isPartial()) {
+                        log.warn("Refresh of '{}' was incomplete, keeping last good result", key);
+                        return previous;
+                    }
+                    return fresh;
+                });
+    }
+
+    private Mono<SearchResult> fetch(String query, String language) {
+        return Mono.defer(() -> {
+            log.info("Searching Wikidata for query: {} in language: {}", query, language);
+
+            Instant startTime = Instant.now();
+            Instant deadline = startTime.plus(fanOutDeadline);
+
+            List<String> subQueries = subQueries(query);
+
+            // flatMapSequential runs up to fanOutParallelism requests at once but
+            // emits their results in subscription order, so the merge stays stable
+            return Flux.fromIterable(subQueries)
+                    .flatMapSequential(q -> searchTerm(q, language, deadline), fanOutParallelism)
+                    .collectList()
+                    .map(parts -> merge(query, parts, Duration.between(startTime, Instant.now()).toMillis()));
+        });
+    }
+
+    // The full query goes first so its results keep priority in the merge,
+    // followed by each individual word of a multi-word query
+    private static List<String> subQueries(String query) {
+        List<String> subQueries = new ArrayList<>();
+        subQueries.add(query);
+        String[] words = query.trim().split("\\s+");
         if (words.length > 1) {
             for (String word : words) {
                 if (!word.equalsIgnoreCase(query)) {
-                    doSearch.accept(word);
+                    subQueries.add(word);
                 }
             }
         }
+        return subQueries;
+    }
+
+    /**
+     * Streams a search as its sub-queries finish. The full query's results are
+     * emitted first; each word's results follow as soon as they arrive, without
+     * entities already sent. A summary event closes the stream. Sub-queries go
+     * through the same term cache, deadline and parallelism as {@link #search}.
+     */
+    public Flux<SearchStreamEvent> searchStream(String query, String language) {
+        return Flux.defer(() -> {
+            String normalized = queryNormalizer.normalize(query, language);
+            List<String> subQueries = subQueries(normalized);
+            Instant startTime = Instant.now();
+            Instant deadline = startTime.plus(fanOutDeadline);
 
-        long elapsed = Duration.between(startTime, Instant.now()).toMillis();
-        long searchTime = totalSearchTime[0] > 0 ? totalSearchTime[0] : elapsed;
+            Flux<NamedPage> full = searchTerm(normalized, language, deadline)
+                    .map(page -> new NamedPage(normalized, page))
+                    .flux();
+            Flux<NamedPage> words = Flux.fromIterable(subQueries.subList(1, subQueries.size()))
+                    .flatMap(word -> searchTerm(word, language, deadline).map(page -> new NamedPage(word, page)),
+                            fanOutParallelism);
+
+            // Both start at once; mergeSequential holds word results back until the
+            // full query has been emitted, then passes them on in completion order
+            Set<String> sent = new HashSet<>();
+            boolean[] partial = {false};
+            return Flux.mergeSequential(full, words)
+                    .concatMap(part -> {
+                        if (part.page() == FAILED || part.page().stale()) {
+                            partial[0] = true;
+                        }
+                        List<SearchResultItem> fresh = part.page().items().stream()
+                                .filter(item -> sent.add(item.getId()))
+                                .toList();
+                        return fresh.isEmpty()
+                                ? Mono.<SearchStreamEvent>empty()
+                                : Mono.just(SearchStreamEvent.results(part.subQuery(), fresh));
+                    })
+                    .concatWith(Mono.fromSupplier(() -> SearchStreamEvent.summary(sent.size(),
+                            Duration.between(startTime, Instant.now()).toMillis(), partial[0])));
+        });
+    }
+
+    /**
+     * Runs many searches at once and returns their results in request order.
+     * Repeated queries are searched once. The Wikidata terms of every query not
+     * already cached are collected across the whole batch, deduplicated and fetched
+     * with at most {@code search.batch.parallelism} calls in flight; the searches are
+     * then assembled from the term cache.
+     */
+    public Mono<List<SearchResult>> searchBatch(List<BatchSearchRequest> requests) {
+        return Mono.defer(() -> {
+            List<SearchKey> keys = requests.stream()
+                    .map(request -> new SearchKey(
+                            queryNormalizer.normalize(request.getQuery(), request.getLanguage()),
+                            request.getLanguage()))
+                    .toList();
+            Set<SearchKey> uniqueKeys = new LinkedHashSet<>(keys);
+            Instant deadline = Instant.now().plus(batchDeadline);
+
+            Mono<Void> prefetch = Flux.fromIterable(uniqueKeys)
+                    .filterWhen(key -> searchCache.getIfPresent(key).hasElement().map(cached -> !cached))
+                    .flatMapIterable(key -> subQueries(key.query()).stream()
+                            .map(term -> new SearchKey(term, key.language()))
+                            .toList())
+                    .distinct()
+                    .flatMap(term -> searchTerm(term.query(), term.language(), deadline), batchParallelism)
+                    .then();
+
+            return prefetch.thenMany(Flux.fromIterable(uniqueKeys)
+                            .flatMap(key -> searchCache.get(key, () -> promoteOrFetch(key))
+                                    .map(result -> Map.entry(key, result)), batchParallelism))
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .map(results -> {
+                        List<SearchResult> ordered = new ArrayList<>(keys.size());
+                        for (int i = 0; i < keys.size(); i++) {
+                            ordered.add(forRequest(results.get(keys.get(i)), requests.get(i).getQuery(), defaultTopK));
+                        }
+                        return ordered;
+                    });
+        });
+    }
+
+    private record NamedPage(String subQuery, WikidataPage page) {
+    }
+
+    private SearchResult merge(String query, List<WikidataPage> parts, long searchTime) {
+        boolean partial = parts.stream().anyMatch(part -> part == FAILED || part.stale());
+        ResultRanker.Ranking ranking = resultRanker.rank(parts.stream().map(WikidataPage::items).toList());
 
         return SearchResult.builder()
                 .query(query)
-                .results(new java.util.ArrayList<>(uniqueResults.values()))
-                .totalResults(uniqueResults.size())
+                .results(ranking.items())
+                .totalResults(ranking.totalMatches())
                 .searchTime(searchTime)
+                .partial(partial)
+                // Only the full query is continued when a client pages past what was fetched
+                .continueOffset(parts.get(0).continueOffset())
                 .build();
     }
 
-    private SearchResultItem convertToSearchResultItem(WikidataSearchEntity entity) {
-        String url;
-        
-        if (entity.getUrl() != null) {
-            // Handle URLs that already include the domain (starting with //www.wikidata.org)
-            if (entity.getUrl().startsWith("//www.wikidata.org")) {
-                url = "https:" + entity.getUrl();
-            } else if (entity.getUrl().startsWith("/")) {
-                // Handles relative URLs that start with a slash
-                url = "https://www.wikidata.org" + entity.getUrl();
-            } else {
-                // Fallback for any other URL format
-                url = "https://www.wikidata.org/wiki/" + entity.getId();
+    private Mono<WikidataPage> searchTerm(String term, String language, Instant deadline) {
+        return Mono.defer(() -> {
+            Duration remaining = Duration.between(Instant.now(), deadline);
+            if (remaining.isNegative() || remaining.isZero()) {
+                log.warn("Skipping Wikidata search for '{}': query deadline exceeded", term);
+                return Mono.just(FAILED);
+            }
+            // Terms are cached on their own so different queries sharing a word reuse
+            // its results. A load outliving this deadline still completes for later callers.
+            SearchKey key = new SearchKey(term, language);
+            // Whatever kept Wikidata from answering, retained data beats an empty page
+            return termCache.get(key, () -> loadTerm(key))
+                    .timeout(remaining)
+                    .onErrorResume(e -> Mono.just(cachedFallback(key, e)));
+        });
+    }
+
+    private Mono<WikidataPage> loadTerm(SearchKey key) {
+        if (searchMode != SearchMode.REMOTE) {
+            WikidataPage local = localIndex.search(key.query(), key.language());
+            if (searchMode == SearchMode.LOCAL || !local.isEmpty()) {
+                return Mono.just(local);
             }
-        } else {
-            // If URL is null, construct it from the ID
-            url = "https://www.wikidata.org/wiki/" + entity.getId();
         }
-        
-        return SearchResultItem.builder()
-                .id(entity.getId())
-                .title(entity.getTitle())
-                .description(entity.getDescription())
-                .url(url)
-                .build();
+        NegativeTermFilter.Decision decision = negativeTermFilter.check(key);
+        if (decision == NegativeTermFilter.Decision.SKIP) {
+            return Mono.just(WikidataPage.EMPTY);
+        }
+        // Failures are cached too, briefly, so a struggling upstream is not retried per request,
+        // unless the term has retained data: the error then reaches searchTerm, which answers
+        // from it. Calls shed by the limiter or the open circuit never reached Wikidata.
+        return fetchTerm(key.query(), key.language(), null)
+                .doOnNext(page -> {
+                    negativeTermFilter.record(key, decision, page.isEmpty());
+                    staleTermCache.put(key, page);
+                })
+                .onErrorResume(e -> !(e instanceof UpstreamSaturatedException || e instanceof UpstreamUnavailableException)
+                        && staleTermCache.peek(key) == null, e -> {
+                    log.error("Error searching Wikidata for '{}': {}", key.query(), e.getMessage());
+                    return Mono.just(FAILED);
+                });
     }
-    
-    private SearchResult createEmptyResult(String query, long searchTime) {
-        return SearchResult.builder()
-                .query(query)
-                .results(Collections.emptyList())
-                .totalResults(0)
-                .searchTime(searchTime)
-                .build();
+
+    /**
+     * Answers a term from whatever is still known about it when Wikidata cannot be
+     * asked or does not answer in time: its last good result in the stale-retention cache, which outlives the
+     * term cache, or else the term cached as a search of its own in the heap or
+     * off-heap tier. The page is marked stale so the search reports itself partial.
+     */
+    private WikidataPage cachedFallback(SearchKey key, Throwable cause) {
+        WikidataPage retained = staleTermCache.peek(key);
+        if (retained != null) {
+            log.info("{}; answering '{}' from retained data", cause.getMessage(), key);
+            return new WikidataPage(retained.items(), retained.continueOffset(), true);
+        }
+        SearchResult cached = searchCache.peek(key);
+        if (cached == null) {
+            cached = offHeapCache.get(key, SearchResult.class);
+        }
+        if (cached == null || cached.getResults() == null) {
+            log.warn("{}; nothing is cached for '{}'", cause.getMessage(), key);
+            return FAILED;
+        }
+        log.info("{}; answering '{}' from cached data", cause.getMessage(), key);
+        return new WikidataPage(cached.getResults(), cached.getContinueOffset(), true);
+    }
+
+    private Mono<WikidataPage> fetchTerm(String term, String language, Integer continueFrom) {
+        String url = UriComponentsBuilder.fromHttpUrl(wikidataApiUrl)
+                .queryParam("action", "wbsearchentities")
+                .queryParam("search", term)
+                .queryParam("language", language)
+                .queryParam("uselang", language)
+                .queryParam("format", "json")
+                .queryParam("limit", 100)
+                .queryParamIfPresent("continue", Optional.ofNullable(continueFrom))
+                .build()
+                .toUriString();
+        // An open circuit fails before queueing; each hedged attempt waits for its own limiter
+        // slot, and its latency is measured from when it gets one
+        return circuitBreaker.execute(SEARCH_ENDPOINT, requestHedger.execute(language,
+                        () -> concurrencyLimiter.execute(requestHedger.measure(language, Mono.defer(() -> getWebClient().get()
+                                .uri(url)
+                                .retrieve()
+                                .bodyToMono(DataBuffer.class)
+                                .timeout(fanOutDeadline))))))
+                .map(this::decode)
+                .defaultIfEmpty(WikidataPage.EMPTY);
+    }
+
+    private Mono<Map<String, EntityDetails>> fetchEntities(List<String> ids, String language) {
+        // Aliases and claims are always fetched, so one cache entry serves every expansion
+        String url = UriComponentsBuilder.fromHttpUrl(wikidataApiUrl)
+                .queryParam("action", "wbgetentities")
+                .queryParam("ids", String.join("|", ids))
+                .queryParam("props", "aliases|claims")
+                .queryParam("languages", language)
+                .queryParam("format", "json")
+                .build()
+                .toUriString();
+        return circuitBreaker.execute(ENTITIES_ENDPOINT, concurrencyLimiter.execute(Mono.defer(() -> getWebClient().get()
+                        .uri(url)
+                        .retrieve()
+                        .bodyToMono(DataBuffer.class)
+                        .timeout(fanOutDeadline))))
+                .map(body -> decodeEntities(body, language))
+                .defaultIfEmpty(Collections.emptyMap())
+                .doOnError(e -> log.error("Error fetching {} Wikidata entities in '{}': {}",
+                        ids.size(), language, e.getMessage()));
+    }
+
+    private Map<String, EntityDetails> decodeEntities(DataBuffer body, String language) {
+        try (InputStream in = body.asInputStream(true)) {
+            return entityDecoder.decode(in, language);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private WikidataPage decode(DataBuffer body) {
+        // Releasing the stream releases the joined response buffer
+        try (InputStream in = body.asInputStream(true)) {
+            return responseDecoder.decode(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,207 @@
+package com.searchmiw.search.service;
+
+import com.searchmiw.search.cache.SearchKey;
+import com.searchmiw.search.config.CacheConfig;
+import com.searchmiw.search.index.FuzzyMatcher;
+import com.searchmiw.search.index.SuggestTrie;
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.Suggestion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prefix completion and spelling correction of search queries, answered from an
+ * in-memory {@link SuggestTrie} and {@link FuzzyMatcher} per language without
+ * touching Wikidata.
+ * <p>
+ * Queries are weighted by how often they were searched: counts from history-service's
+ * popular queries, plus searches served by this instance, plus one for each query in
+ * {@code wikidata-searches} that found something. Inputs are gathered continuously and a
+ * language's trie and matcher are rebuilt every {@code rebuild-interval} only if its
+ * inputs changed; lookups keep using the previous ones until the new ones are swapped in.
+ */
+@Service
+@Slf4j
+public class SuggestionService {
+
+    private final CacheManager cacheManager;
+    private final HistoryService historyService;
+    private final QueryNormalizer queryNormalizer;
+    private final List<String> languages;
+    private final int maxEntries;
+    private final int historyDays;
+    private final int historyTopN;
+    private final int maxEdits;
+
+    private final Map<String, Map<String, LongAdder>> searched = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Long>> popular = new ConcurrentHashMap<>();
+    // Queries currently in wikidata-searches with results, per language; replaced on every pass
+    private volatile Map<String, Set<String>> cached = Map.of();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, SuggestTrie> tries = Map.of();
+    private volatile Map<String, FuzzyMatcher> matchers = Map.of();
+
+    public SuggestionService(CacheManager cacheManager, HistoryService historyService, QueryNormalizer queryNormalizer,
+                             @Value("${search.suggest.languages:en,es}") List<String> languages,
+                             @Value("${search.suggest.max-entries:50000}") int maxEntries,
+                             @Value("${search.suggest.history-days:30}") int historyDays,
+                             @Value("${search.suggest.history-top-n:1000}") int historyTopN,
+                             @Value("${search.fuzzy.max-edits:2}") int maxEdits) {
+        this.cacheManager = cacheManager;
+        this.historyService = historyService;
+        this.queryNormalizer = queryNormalizer;
+        this.languages = languages;
+        this.maxEntries = maxEntries;
+        this.historyDays = historyDays;
+        this.historyTopN = historyTopN;
+        this.maxEdits = maxEdits;
+    }
+
+    /**
+     * The most searched known queries starting with the prefix, most searched first.
+     */
+    public List<Suggestion> suggest(String prefix, String language, int limit) {
+        SuggestTrie trie = tries.get(language);
+        if (trie == null) {
+            return List.of();
+        }
+        // Same canonical form as the queries, but a trailing space still asks for a next word
+        String normalized = queryNormalizer.normalize(prefix, language);
+        if (!normalized.isEmpty() && Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            normalized += " ";
+        }
+        return trie.complete(normalized, limit);
+    }
+
+    /**
+     * The known query nearest to a normalized query that is not known itself, or null.
+     */
+    public String correct(String normalizedQuery, String language) {
+        FuzzyMatcher matcher = matchers.get(language);
+        return matcher != null ? matcher.nearest(normalizedQuery) : null;
+    }
+
+    /**
+     * Counts a search that found results; it becomes a suggestion on the next rebuild.
+     */
+    public void record(String query, String language) {
+        String normalized = queryNormalizer.normalize(query, language);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        searched.computeIfAbsent(language, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(normalized, key -> new LongAdder())
+                .increment();
+        dirty.add(language);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refreshFromHistory().doFinally(signal -> rebuild()).subscribe();
+    }
+
+    @Scheduled(initialDelayString = "${search.suggest.history-interval:PT1H}",
+               fixedDelayString = "${search.suggest.history-interval:PT1H}")
+    public void scheduledHistoryRefresh() {
+        refreshFromHistory().subscribe();
+    }
+
+    /**
+     * Replaces the history-service counts of every language.
+     */
+    public Mono<Void> refreshFromHistory() {
+        return Flux.fromIterable(languages)
+                .concatMap(language -> historyService.fetchPopularQueries(language, historyDays, historyTopN)
+                        .collectMap(query -> queryNormalizer.normalize(query.getQuery(), language),
+                                query -> query.getCount() != null ? query.getCount() : 1L,
+                                HashMap::new)
+                        .doOnNext(counts -> {
+                            counts.remove("");
+                            popular.put(language, counts);
+                            dirty.add(language);
+                        }))
+                .then();
+    }
+
+    /**
+     * Picks up the currently cached queries and rebuilds the trie of every language whose inputs changed.
+     */
+    @Scheduled(initialDelayString = "${search.suggest.rebuild-interval:PT1M}",
+               fixedDelayString = "${search.suggest.rebuild-interval:PT1M}")
+    public synchronized void rebuild() {
+        collectCachedQueries();
+        Map<String, SuggestTrie> updatedTries = new HashMap<>(tries);
+        Map<String, FuzzyMatcher> updatedMatchers = new HashMap<>(matchers);
+        for (String language : Set.copyOf(dirty)) {
+            dirty.remove(language);
+            Map<String, Long> weights = weights(language);
+            updatedTries.put(language, SuggestTrie.build(weights));
+            updatedMatchers.put(language, FuzzyMatcher.build(weights, maxEdits));
+            log.debug("Rebuilt suggestions for '{}' with {} queries", language, weights.size());
+        }
+        tries = Map.copyOf(updatedTries);
+        matchers = Map.copyOf(updatedMatchers);
+    }
+
+    /**
+     * Takes the cached queries from what the search cache holds now, so queries that
+     * were evicted stop being suggested and the set stays as bounded as the cache.
+     */
+    private void collectCachedQueries() {
+        if (!(cacheManager.getCache(CacheConfig.SEARCH_CACHE) instanceof CaffeineCache cache)) {
+            return;
+        }
+        Map<String, Set<String>> current = new HashMap<>();
+        cache.getAsyncCache().asMap().forEach((key, value) -> {
+            if (key instanceof SearchKey search && hasResults(value)) {
+                current.computeIfAbsent(search.language(), language -> new HashSet<>()).add(search.query());
+            }
+        });
+        Set<String> changed = new HashSet<>(current.keySet());
+        changed.addAll(cached.keySet());
+        changed.removeIf(language -> current.getOrDefault(language, Set.of())
+                .equals(cached.getOrDefault(language, Set.of())));
+        dirty.addAll(changed);
+        cached = current;
+    }
+
+    private static boolean hasResults(CompletableFuture<Object> value) {
+        return value.isDone() && !value.isCompletedExceptionally()
+                && value.join() instanceof SearchResult result && result.getTotalResults() > 0;
+    }
+
+    private Map<String, Long> weights(String language) {
+        Map<String, Long> weights = new HashMap<>(popular.getOrDefault(language, Map.of()));
+        searched.getOrDefault(language, Map.of()).forEach((query, count) -> weights.merge(query, count.sum(), Long::sum));
+        cached.getOrDefault(language, Set.of()).forEach(query -> weights.merge(query, 1L, Long::sum));
+        if (weights.size() <= maxEntries) {
+            return weights;
+        }
+        Map<String, Long> heaviest = new HashMap<>();
+        weights.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(maxEntries)
+                .forEach(entry -> heaviest.put(entry.getKey(), entry.getValue()));
+        // Rarely searched queries that cannot make the cut stop taking memory
+        searched.getOrDefault(language, Map.of()).keySet().retainAll(heaviest.keySet());
+        return heaviest;
+    }
+}
@@ -0,0 +1,139 @@
+package com.searchmiw.search.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchmiw.search.model.EntityDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a wbgetentities response into {@link EntityDetails}, one per entity.
+ * <p>
+ * The response is streamed entity by entity, so only one entity's tree is held at
+ * a time. Of each entity the aliases in the requested language and the claims are
+ * kept; a claim's values are those of its preferred statements, or of its normal
+ * ones when none is preferred, rendered as plain strings. The image is the first
+ * P18 value, as a Commons file URL.
+ */
+@Component
+public class WikidataEntityDecoder {
+
+    private static final String IMAGE_PROPERTY = "P18";
+    private static final String COMMONS_FILE_URL = "https://commons.wikimedia.org/wiki/Special:FilePath/";
+
+    private final ObjectMapper objectMapper;
+
+    public WikidataEntityDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Map<String, EntityDetails> decode(InputStream body, String language) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            return decode(parser, language);
+        }
+    }
+
+    public Map<String, EntityDetails> decode(byte[] body, String language) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            return decode(parser, language);
+        }
+    }
+
+    private Map<String, EntityDetails> decode(JsonParser parser, String language) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return Collections.emptyMap();
+        }
+        Map<String, EntityDetails> entities = new HashMap<>();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            if (!"entities".equals(field) || value != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String id;
+            while ((id = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                JsonNode entity = objectMapper.readTree(parser);
+                entities.put(id, readEntity(id, entity, language));
+            }
+        }
+        return entities;
+    }
+
+    private static EntityDetails readEntity(String id, JsonNode entity, String language) {
+        if (entity.has("missing")) {
+            return EntityDetails.missing(id);
+        }
+        List<String> aliases = new ArrayList<>();
+        for (JsonNode alias : entity.path("aliases").path(language)) {
+            if (alias.hasNonNull("value")) {
+                aliases.add(alias.get("value").asText());
+            }
+        }
+        Map<String, List<String>> claims = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> properties = entity.path("claims").fields();
+        while (properties.hasNext()) {
+            Map.Entry<String, JsonNode> property = properties.next();
+            List<String> values = bestValues(property.getValue());
+            if (!values.isEmpty()) {
+                claims.put(property.getKey(), values);
+            }
+        }
+        List<String> images = claims.get(IMAGE_PROPERTY);
+        String image = images != null ? imageUrl(images.get(0)) : null;
+        return new EntityDetails(id, List.copyOf(aliases), image, claims, false);
+    }
+
+    private static List<String> bestValues(JsonNode statements) {
+        List<String> preferred = new ArrayList<>();
+        List<String> normal = new ArrayList<>();
+        for (JsonNode statement : statements) {
+            String rank = statement.path("rank").asText("normal");
+            if ("deprecated".equals(rank)) {
+                continue;
+            }
+            // novalue and somevalue snaks carry no datavalue
+            String value = render(statement.path("mainsnak").path("datavalue"));
+            if (value != null) {
+                ("preferred".equals(rank) ? preferred : normal).add(value);
+            }
+        }
+        return preferred.isEmpty() ? normal : preferred;
+    }
+
+    private static String render(JsonNode datavalue) {
+        JsonNode value = datavalue.path("value");
+        if (value.isMissingNode() || value.isNull()) {
+            return null;
+        }
+        if (value.isTextual()) {
+            return value.asText();
+        }
+        return switch (datavalue.path("type").asText()) {
+            case "wikibase-entityid" -> value.path("id").asText(null);
+            case "time" -> value.path("time").asText(null);
+            case "quantity" -> value.path("amount").asText(null);
+            case "monolingualtext" -> value.path("text").asText(null);
+            case "globecoordinate" -> value.path("latitude").asText() + "," + value.path("longitude").asText();
+            default -> value.toString();
+        };
+    }
+
+    private static String imageUrl(String fileName) {
+        return COMMONS_FILE_URL + UriUtils.encodePathSegment(fileName.replace(' ', '_'), StandardCharsets.UTF_8);
+    }
+}
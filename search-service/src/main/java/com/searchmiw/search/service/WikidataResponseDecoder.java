@@ -0,0 +1,126 @@
+package com.searchmiw.search.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchmiw.search.model.SearchResultItem;
+import com.searchmiw.search.model.WikidataPage;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decodes a wbsearchentities response straight into {@link SearchResultItem}s.
+ * <p>
+ * The response is read token by token: only id, title, description and url of each
+ * entry in {@code search} are materialized, everything else (match, aliases, display,
+ * searchinfo...) is skipped without being bound, and entries repeating an id already
+ * seen in the same response are dropped during the parse. The top-level
+ * {@code search-continue} offset is kept so deeper pages can be requested.
+ */
+@Component
+public class WikidataResponseDecoder {
+
+    private static final String WIKIDATA_HOST = "//www.wikidata.org";
+    private static final String ENTITY_URL_PREFIX = "https://www.wikidata.org/wiki/";
+
+    private final JsonFactory jsonFactory;
+
+    public WikidataResponseDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public WikidataPage decode(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return decode(parser);
+        }
+    }
+
+    public WikidataPage decode(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return decode(parser);
+        }
+    }
+
+    private WikidataPage decode(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return WikidataPage.EMPTY;
+        }
+        List<SearchResultItem> items = Collections.emptyList();
+        Integer continueOffset = null;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            if ("search".equals(field) && value == JsonToken.START_ARRAY) {
+                items = readSearchArray(parser);
+            } else if ("search-continue".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                continueOffset = parser.getIntValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new WikidataPage(items, continueOffset);
+    }
+
+    private List<SearchResultItem> readSearchArray(JsonParser parser) throws IOException {
+        List<SearchResultItem> items = new ArrayList<>();
+        Set<String> seenIds = new HashSet<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            SearchResultItem item = readEntity(parser);
+            if (item.getId() != null && seenIds.add(item.getId())) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private SearchResultItem readEntity(JsonParser parser) throws IOException {
+        String id = null;
+        String title = null;
+        String description = null;
+        String url = null;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "id" -> id = parser.getText();
+                case "title" -> title = parser.getText();
+                case "description" -> description = parser.getText();
+                case "url" -> url = parser.getText();
+                default -> {
+                    // Scalar we do not use
+                }
+            }
+        }
+        return new SearchResultItem(id, title, description, absoluteUrl(url, id));
+    }
+
+    private static String absoluteUrl(String url, String id) {
+        if (url != null) {
+            // Wikidata returns protocol-relative URLs (//www.wikidata.org/wiki/Q42)
+            if (url.startsWith(WIKIDATA_HOST)) {
+                return "https:" + url;
+            }
+            if (url.startsWith("/")) {
+                return "https://www.wikidata.org" + url;
+            }
+        }
+        return ENTITY_URL_PREFIX + id;
+    }
+}
@@ -0,0 +1,55 @@
+package com.searchmiw.search.benchmark;
+
+import com.searchmiw.search.model.SearchResultItem;
+import com.searchmiw.search.service.ResultRanker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging a multi-word search's sub-query results with {@link ResultRanker}, the step
+ * that replaced the LinkedHashMap merge in SearchService. Each sub-query returns a
+ * full Wikidata page of 50 entities, and neighbouring lists share 15 of them, as
+ * queries sharing words do.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args=ResultRanker}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultRankerBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int OVERLAP = 15;
+
+    // The full query plus one sub-query per word
+    @Param({"2", "4", "7"})
+    private int lists;
+
+    private ResultRanker ranker;
+    private List<List<SearchResultItem>> parts;
+
+    @Setup
+    public void setUp() {
+        ranker = new ResultRanker(2.0, 100);
+        parts = new ArrayList<>(lists);
+        for (int list = 0; list < lists; list++) {
+            List<SearchResultItem> part = new ArrayList<>(PAGE_SIZE);
+            for (int position = 0; position < PAGE_SIZE; position++) {
+                String id = "Q" + (937 + list * (PAGE_SIZE - OVERLAP) + position);
+                part.add(new SearchResultItem(id, id, "description of " + id, "https://www.wikidata.org/wiki/" + id));
+            }
+            parts.add(part);
+        }
+    }
+
+    @Benchmark
+    public ResultRanker.Ranking rank() {
+        return ranker.rank(parts);
+    }
+}
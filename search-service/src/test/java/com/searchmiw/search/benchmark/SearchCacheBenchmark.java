@@ -0,0 +1,105 @@
+package com.searchmiw.search.benchmark;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.searchmiw.search.cache.CoalescingCache;
+import com.searchmiw.search.cache.SearchKey;
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.SearchResultItem;
+import com.searchmiw.search.service.QueryNormalizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.caffeine.CaffeineCache;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cache path every search takes: building the key from the raw query, then
+ * {@link CoalescingCache} lookups on the async Caffeine cache, set up as in CacheConfig.
+ * {@code contended} runs three reading threads against one writing thread over a key
+ * space a third larger than the cache, so reads mix hits, misses and evictions; its
+ * figures only mean something on a machine with at least four cores.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args=SearchCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchCacheBenchmark {
+
+    private static final int KEYS = 4096;
+    private static final String[] WORDS = {"Albert", "EINSTEIN", "marie", "Curie", "isaac", "Newton", "ada",
+            "Lovelace", "alan", "TURING", "galileo", "Kepler"};
+
+    private QueryNormalizer normalizer;
+    private String[] rawQueries;
+    private SearchKey[] keys;
+    private CoalescingCache<SearchKey, SearchResult> cache;
+    private SearchResult value;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+
+        int next() {
+            return random.nextInt(KEYS);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        normalizer = new QueryNormalizer(Set.of(), Set.of());
+        SplittableRandom random = new SplittableRandom(42);
+        rawQueries = new String[KEYS];
+        keys = new SearchKey[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            // Untidy input, as typed by users: mixed case and repeated spaces
+            rawQueries[i] = " " + WORDS[random.nextInt(WORDS.length)] + "  " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + i + " ";
+            keys[i] = new SearchKey(normalizer.normalize(rawQueries[i], "en"), "en");
+        }
+        cache = new CoalescingCache<>(new CaffeineCache("benchmark", Caffeine.newBuilder()
+                .maximumSize(KEYS * 3 / 4)
+                .recordStats()
+                .buildAsync(), true), new SimpleMeterRegistry());
+        value = result(25);
+        for (SearchKey key : keys) {
+            cache.put(key, value);
+        }
+    }
+
+    @Benchmark
+    public SearchKey key(Cursor cursor) {
+        return new SearchKey(normalizer.normalize(rawQueries[cursor.next()], "en"), "en");
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public SearchResult read(Cursor cursor) {
+        return cache.get(keys[cursor.next()], () -> Mono.just(value)).block();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void write(Cursor cursor) {
+        cache.put(keys[cursor.next()], value);
+    }
+
+    private static SearchResult result(int size) {
+        List<SearchResultItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = "Q" + (937 + i);
+            items.add(new SearchResultItem(id, id, "description of " + id, "https://www.wikidata.org/wiki/" + id));
+        }
+        return SearchResult.builder().query("albert einstein").results(items).totalResults(size).build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.searchmiw.search.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchmiw.search.cache.SearchResultCodec;
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.SearchResultItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a {@link SearchResult} as the JSON response body, next to the binary
+ * {@link SearchResultCodec} that the off-heap tier and the cache snapshot use.
+ * Sizes are the default top-K and the most the ranker keeps.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args=SearchResultSerialization}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchResultSerializationBenchmark {
+
+    @Param({"25", "100"})
+    private int results;
+
+    private ObjectMapper objectMapper;
+    private SearchResult result;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        List<SearchResultItem> items = new ArrayList<>(results);
+        for (int i = 0; i < results; i++) {
+            String id = "Q" + (937 + i);
+            items.add(new SearchResultItem(id, "Albert Einstein " + i, "German-born theoretical physicist (1879–1955)",
+                    "https://www.wikidata.org/wiki/" + id));
+        }
+        result = SearchResult.builder()
+                .query("albert einstein")
+                .results(items)
+                .totalResults(results)
+                .searchTime(42)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] jackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public byte[] codec() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * results);
+        SearchResultCodec.write(new DataOutputStream(bytes), result);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,62 @@
+package com.searchmiw.search.benchmark;
+
+import com.searchmiw.search.index.SuggestTrie;
+import com.searchmiw.search.model.Suggestion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix lookups in {@link SuggestTrie}, as served by /api/search/suggest. Prefixes
+ * of one to five characters are drawn from the indexed queries, so short prefixes with
+ * huge subtrees are included.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args=SuggestTrie}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestTrieBenchmark {
+
+    private static final String[] WORDS = {"albert", "einstein", "marie", "curie", "isaac", "newton", "charles",
+            "darwin", "ada", "lovelace", "alan", "turing", "galileo", "galilei", "niels", "bohr", "max", "planck",
+            "rosalind", "franklin", "nikola", "tesla", "johannes", "kepler", "werner", "heisenberg"};
+
+    @Param({"1000", "50000"})
+    private int queries;
+
+    private SuggestTrie trie;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        Map<String, Long> weighted = new HashMap<>();
+        while (weighted.size() < queries) {
+            String query = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + (random.nextBoolean() ? " " + random.nextInt(1000) : "");
+            // Zipf-like: a few queries are searched far more often than the rest
+            weighted.put(query, (long) (1000.0 / (1 + random.nextInt(1000))));
+        }
+        trie = SuggestTrie.build(weighted);
+        String[] texts = weighted.keySet().toArray(String[]::new);
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String text = texts[random.nextInt(texts.length)];
+            prefixes[i] = text.substring(0, Math.min(text.length(), 1 + random.nextInt(5)));
+        }
+    }
+
+    @Benchmark
+    public List<Suggestion> complete() {
+        return trie.complete(prefixes[next++ & (prefixes.length - 1)], 10);
+    }
+}
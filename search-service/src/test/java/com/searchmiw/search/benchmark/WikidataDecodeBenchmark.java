@@ -0,0 +1,109 @@
+package com.searchmiw.search.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchmiw.search.model.SearchResultItem;
+import com.searchmiw.search.model.WikidataResponse;
+import com.searchmiw.search.model.WikidataSearchEntity;
+import com.searchmiw.search.service.WikidataResponseDecoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares binding a wbsearchentities response to {@link WikidataResponse} and copying it
+ * into {@link SearchResultItem}s against the streaming {@link WikidataResponseDecoder}.
+ * {@code conversion} measures only the copy into items with their absolute URLs, from
+ * an already bound response.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args=WikidataDecode}; the GC
+ * profiler reports gc.alloc.rate.norm, the bytes allocated per decoded response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WikidataDecodeBenchmark {
+
+    @Param({"10", "100"})
+    private int entities;
+
+    private byte[] body;
+    private ObjectMapper objectMapper;
+    private WikidataResponseDecoder decoder;
+    private WikidataResponse bound;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        decoder = new WikidataResponseDecoder(objectMapper);
+        body = sampleResponse(entities).getBytes(StandardCharsets.UTF_8);
+        try {
+            bound = objectMapper.readValue(body, WikidataResponse.class);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public List<SearchResultItem> databind() throws IOException {
+        WikidataResponse response = objectMapper.readValue(body, WikidataResponse.class);
+        return response.getSearch().stream().map(WikidataDecodeBenchmark::convert).toList();
+    }
+
+    @Benchmark
+    public List<SearchResultItem> streaming() throws IOException {
+        return decoder.decode(body).items();
+    }
+
+    @Benchmark
+    public List<SearchResultItem> conversion() {
+        return bound.getSearch().stream().map(WikidataDecodeBenchmark::convert).toList();
+    }
+
+    // The conversion SearchService used before the streaming decoder
+    private static SearchResultItem convert(WikidataSearchEntity entity) {
+        String url;
+        if (entity.getUrl() != null && entity.getUrl().startsWith("//www.wikidata.org")) {
+            url = "https:" + entity.getUrl();
+        } else if (entity.getUrl() != null && entity.getUrl().startsWith("/")) {
+            url = "https://www.wikidata.org" + entity.getUrl();
+        } else {
+            url = "https://www.wikidata.org/wiki/" + entity.getId();
+        }
+        return SearchResultItem.builder()
+                .id(entity.getId())
+                .title(entity.getTitle())
+                .description(entity.getDescription())
+                .url(url)
+                .build();
+    }
+
+    // Shaped like a real wbsearchentities response, including the fields we skip
+    private static String sampleResponse(int count) {
+        StringBuilder json = new StringBuilder("{\"searchinfo\":{\"search\":\"einstein\"},\"search\":[");
+        for (int i = 0; i < count; i++) {
+            String id = "Q" + (937 + i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(id).append("\",")
+                    .append("\"title\":\"").append(id).append("\",")
+                    .append("\"pageid\":").append(1000 + i).append(',')
+                    .append("\"concepturi\":\"http://www.wikidata.org/entity/").append(id).append("\",")
+                    .append("\"repository\":\"wikidata\",")
+                    .append("\"url\":\"//www.wikidata.org/wiki/").append(id).append("\",")
+                    .append("\"display\":{\"label\":{\"value\":\"Albert Einstein ").append(i)
+                    .append("\",\"language\":\"en\"},\"description\":{\"value\":\"German-born theoretical physicist\",\"language\":\"en\"}},")
+                    .append("\"label\":\"Albert Einstein ").append(i).append("\",")
+                    .append("\"description\":\"German-born theoretical physicist\",")
+                    .append("\"match\":{\"type\":\"label\",\"language\":\"en\",\"text\":\"Albert Einstein\"},")
+                    .append("\"aliases\":[\"Einstein\",\"A. Einstein\"]}");
+        }
+        return json.append("],\"search-continue\":").append(count).append(",\"success\":1}").toString();
+    }
+}
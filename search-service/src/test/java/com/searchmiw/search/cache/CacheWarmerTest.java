@@ -0,0 +1,100 @@
+package com.searchmiw.search.cache;
+
+import com.searchmiw.search.model.PopularQuery;
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.service.HistoryService;
+import com.searchmiw.search.service.SearchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheWarmerTest {
+
+    private final SearchService searchService = mock(SearchService.class);
+    private final HistoryService historyService = mock(HistoryService.class);
+
+    private CacheWarmer warmer(double readyShare) {
+        return warmer(readyShare, Duration.ofMinutes(2));
+    }
+
+    private CacheWarmer warmer(double readyShare, Duration maxDuration) {
+        return new CacheWarmer(searchService, historyService, true, List.of("en", "es"),
+                10, 7, 1000, readyShare, maxDuration);
+    }
+
+    @Test
+    void prefillsPopularQueriesForEachLanguage() {
+        when(historyService.fetchPopularQueries("en", 7, 10)).thenReturn(Flux.just(
+                new PopularQuery("einstein", "en", 5L), new PopularQuery("curie", "en", 3L)));
+        when(historyService.fetchPopularQueries("es", 7, 10)).thenReturn(Flux.just(
+                new PopularQuery("cervantes", "es", 2L)));
+        when(searchService.search(anyString(), anyString()))
+                .thenReturn(Mono.just(SearchResult.builder().totalResults(1).build()));
+
+        CacheWarmer warmer = warmer(0.8);
+        assertFalse(warmer.isReady());
+        assertEquals(Status.OUT_OF_SERVICE, warmer.health().getStatus());
+
+        warmer.warmUp().block();
+
+        verify(searchService).search("einstein", "en");
+        verify(searchService).search("curie", "en");
+        verify(searchService).search("cervantes", "es");
+        assertTrue(warmer.isReady());
+        assertEquals(Status.UP, warmer.health().getStatus());
+    }
+
+    @Test
+    void staysNotReadyUntilShareIsLoaded() {
+        when(historyService.fetchPopularQueries(anyString(), anyInt(), anyInt())).thenReturn(Flux.empty());
+        when(historyService.fetchPopularQueries("en", 7, 10)).thenReturn(Flux.just(
+                new PopularQuery("einstein", "en", 5L), new PopularQuery("curie", "en", 3L)));
+        when(searchService.search("einstein", "en"))
+                .thenReturn(Mono.just(SearchResult.builder().totalResults(1).build()));
+        when(searchService.search("curie", "en"))
+                .thenReturn(Mono.just(SearchResult.builder().partial(true).build()));
+
+        CacheWarmer warmer = warmer(0.8);
+        warmer.warmUp().block();
+
+        assertFalse(warmer.isReady());
+    }
+
+    @Test
+    void emptyWarmSetCountsAsReady() {
+        when(historyService.fetchPopularQueries(anyString(), anyInt(), anyInt())).thenReturn(Flux.empty());
+
+        CacheWarmer warmer = warmer(0.8);
+        warmer.warmUp().block();
+
+        assertTrue(warmer.isReady());
+        verifyNoInteractions(searchService);
+    }
+
+    @Test
+    void reportsReadyAfterTheMaximumWarmUpTimeWhenWikidataIsDown() throws InterruptedException {
+        when(historyService.fetchPopularQueries(anyString(), anyInt(), anyInt())).thenReturn(Flux.empty());
+        when(historyService.fetchPopularQueries("en", 7, 10)).thenReturn(Flux.just(
+                new PopularQuery("einstein", "en", 5L), new PopularQuery("curie", "en", 3L)));
+        // What searches return while every Wikidata call fails
+        when(searchService.search(anyString(), anyString()))
+                .thenReturn(Mono.just(SearchResult.builder().partial(true).build()));
+
+        CacheWarmer warmer = warmer(0.8, Duration.ofMillis(100));
+        warmer.warmUpOnStartup();
+        assertFalse(warmer.isReady());
+
+        Thread.sleep(300);
+
+        assertTrue(warmer.isReady());
+        assertEquals(Status.UP, warmer.health().getStatus());
+        assertEquals(0, warmer.health().getDetails().get("loaded"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.searchmiw.search.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeTermFilterTest {
+
+    @Test
+    void skipsTermsKnownToBeEmpty() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        NegativeTermFilter filter = new NegativeTermFilter(1000, 0.01, 0.0, registry);
+        SearchKey typo = new SearchKey("einstien", "en");
+
+        assertEquals(NegativeTermFilter.Decision.FETCH, filter.check(typo));
+        filter.record(typo, NegativeTermFilter.Decision.FETCH, true);
+
+        assertEquals(NegativeTermFilter.Decision.SKIP, filter.check(typo));
+        assertEquals(NegativeTermFilter.Decision.FETCH, filter.check(new SearchKey("einstien", "de")));
+        assertEquals(1, registry.counter("search.negative-filter.upstream-saved").count());
+    }
+
+    @Test
+    void sampledTermsWithResultsCountAsFalsePositives() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        NegativeTermFilter filter = new NegativeTermFilter(1000, 0.01, 1.0, registry);
+        SearchKey term = new SearchKey("new band", "en");
+        filter.record(term, NegativeTermFilter.Decision.FETCH, true);
+
+        NegativeTermFilter.Decision decision = filter.check(term);
+        filter.record(term, decision, false);
+
+        assertEquals(NegativeTermFilter.Decision.VERIFY, decision);
+        assertEquals(1.0, filter.observedFalsePositiveRate());
+    }
+
+    @Test
+    void termsAgeOutAfterTwoRotations() {
+        NegativeTermFilter filter = new NegativeTermFilter(1000, 0.01, 0.0, new SimpleMeterRegistry());
+        SearchKey term = new SearchKey("xz9812", "en");
+        filter.record(term, NegativeTermFilter.Decision.FETCH, true);
+
+        filter.rotate();
+        assertEquals(NegativeTermFilter.Decision.SKIP, filter.check(term));
+        filter.rotate();
+        assertEquals(NegativeTermFilter.Decision.FETCH, filter.check(term));
+    }
+
+    @Test
+    void bloomFilterStaysNearItsTargetFalsePositiveRate() {
+        BloomFilter bloom = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloom.add("term-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bloom.mightContain("term-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloom.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertTrue(bloom.expectedFalsePositiveProbability() < 0.02);
+    }
+}
@@ -0,0 +1,115 @@
+package com.searchmiw.search.cache;
+
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.SearchResultItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapSearchCacheTest {
+
+    @Test
+    void roundTripsCompressedResults() {
+        OffHeapSearchCache cache = new OffHeapSearchCache("test", 1 << 20, Duration.ofHours(1));
+        SearchResult result = result("albert einstein", 200);
+
+        cache.put(new SearchKey("albert einstein", "en"), result);
+
+        assertEquals(result, cache.get(new SearchKey("albert einstein", "en")).get());
+        // Repetitive result lists compress well below their encoded size
+        assertTrue(cache.usedBytes() < 200 * 60);
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void takeIfPresentRemovesThePromotedEntry() {
+        OffHeapSearchCache cache = new OffHeapSearchCache("test", 1 << 20, Duration.ofHours(1));
+        SearchKey key = new SearchKey("curie", "en");
+        cache.put(key, result("curie", 3));
+
+        assertNotNull(cache.takeIfPresent(key));
+        assertNull(cache.takeIfPresent(key));
+        assertEquals(0, cache.usedBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesOverTheByteBudget() {
+        OffHeapSearchCache probe = new OffHeapSearchCache("probe", 1 << 20, Duration.ofHours(1));
+        probe.put("a", result("a", 50));
+        long entrySize = probe.usedBytes();
+
+        OffHeapSearchCache cache = new OffHeapSearchCache("test", entrySize * 2 + entrySize / 2, Duration.ofHours(1));
+        cache.put("a", result("a", 50));
+        cache.put("b", result("b", 50));
+        cache.get("a");
+        cache.put("c", result("c", 50));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void reusesFreedBlocksWithoutReservingPastTheBudget() {
+        long budget = 64L * OffHeapSearchCache.BLOCK_SIZE;
+        OffHeapSearchCache cache = new OffHeapSearchCache("test", budget, Duration.ofHours(1));
+
+        for (int i = 0; i < 500; i++) {
+            cache.put("q" + i, result("q" + i, 40));
+        }
+
+        assertEquals(budget, cache.reservedBytes());
+        assertTrue(cache.usedBytes() <= budget);
+        assertEquals(result("q499", 40), cache.get("q499").get());
+        assertTrue(cache.evictionCount() > 0);
+
+        cache.clear();
+        assertEquals(0, cache.usedBytes());
+        assertEquals(budget, cache.reservedBytes());
+    }
+
+    @Test
+    void entriesSpanningSeveralBlocksRoundTrip() {
+        OffHeapSearchCache cache = new OffHeapSearchCache("test", 1 << 20, Duration.ofHours(1));
+        SearchResult result = result("alan turing", 2000);
+
+        cache.put("alan turing", result);
+
+        assertTrue(cache.usedBytes() > OffHeapSearchCache.BLOCK_SIZE);
+        assertEquals(result, cache.takeIfPresent("alan turing"));
+    }
+
+    @Test
+    void doesNotDemoteEmptyOrPartialResults() {
+        OffHeapSearchCache cache = new OffHeapSearchCache("test", 1 << 20, Duration.ofHours(1));
+
+        cache.put("empty", result("empty", 0));
+        cache.put("partial", result("partial", 3).toBuilder().partial(true).build());
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.reservedBytes());
+    }
+
+    @Test
+    void zeroBudgetDisablesTheTier() {
+        OffHeapSearchCache cache = new OffHeapSearchCache("test", 0, Duration.ofHours(1));
+
+        cache.put("a", result("a", 1));
+
+        assertEquals(0, cache.size());
+    }
+
+    private SearchResult result(String query, int size) {
+        List<SearchResultItem> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            items.add(new SearchResultItem("Q" + i, query + " " + i, "description " + i,
+                    "https://www.wikidata.org/wiki/Q" + i));
+        }
+        return SearchResult.builder().query(query).results(items).totalResults(size).searchTime(10).build();
+    }
+}
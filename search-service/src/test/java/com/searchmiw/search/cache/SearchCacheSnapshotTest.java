@@ -0,0 +1,72 @@
+package com.searchmiw.search.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.searchmiw.search.config.CacheConfig;
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.SearchResultItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restoresEntriesWithTheirRemainingLifetime() throws Exception {
+        Path file = tempDir.resolve("snapshot.bin");
+        CaffeineCacheManager source = cacheManager();
+        SearchResult einstein = SearchResult.builder()
+                .query("albert einstein")
+                .results(Arrays.asList(
+                        new SearchResultItem("Q937", "Albert Einstein", "physicist", "https://www.wikidata.org/wiki/Q937"),
+                        new SearchResultItem("Q1", "Universe", null, "https://www.wikidata.org/wiki/Q1")))
+                .totalResults(2)
+                .searchTime(120)
+                .build();
+        SearchKey key = new SearchKey("albert einstein", "en");
+        asyncCache(source).synchronous().policy().expireVariably().orElseThrow()
+                .put(key, einstein, Duration.ofMinutes(10));
+
+        assertEquals(1, new SearchCacheSnapshot(source, true, file.toString()).save());
+
+        CaffeineCacheManager target = cacheManager();
+        assertEquals(1, new SearchCacheSnapshot(target, true, file.toString()).restore());
+
+        AsyncCache<Object, Object> restored = asyncCache(target);
+        assertEquals(einstein, restored.synchronous().getIfPresent(key));
+        Duration remaining = restored.synchronous().policy().expireVariably().orElseThrow()
+                .getExpiresAfter(key).orElseThrow();
+        assertTrue(remaining.compareTo(Duration.ofMinutes(10)) <= 0);
+        assertTrue(remaining.compareTo(Duration.ofMinutes(9)) > 0);
+    }
+
+    @Test
+    void missingSnapshotRestoresNothing() throws Exception {
+        SearchCacheSnapshot snapshot = new SearchCacheSnapshot(cacheManager(), true, tempDir.resolve("none.bin").toString());
+
+        assertEquals(0, snapshot.restore());
+    }
+
+    private CaffeineCacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAsyncCacheMode(true);
+        cacheManager.registerCustomCache(CacheConfig.SEARCH_CACHE, Caffeine.newBuilder()
+                .expireAfter(new SearchExpiry(Duration.ofHours(1)))
+                .buildAsync());
+        return cacheManager;
+    }
+
+    private AsyncCache<Object, Object> asyncCache(CaffeineCacheManager cacheManager) {
+        return ((CaffeineCache) cacheManager.getCache(CacheConfig.SEARCH_CACHE)).getAsyncCache();
+    }
+}
@@ -0,0 +1,74 @@
+package com.searchmiw.search.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, Duration maxQueueWait) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 1, 10, Duration.ofMillis(100), 0.5,
+                maxQueueWait, registry);
+    }
+
+    @Test
+    void fastCallsRaiseTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 10; i++) {
+            limiter.execute(Mono.just("ok")).block();
+        }
+
+        assertTrue(limiter.limit() > 2, "limit: " + limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void timeoutsAndSlowCallsLowerTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, Duration.ofSeconds(1));
+
+        limiter.execute(Mono.error(new TimeoutException())).onErrorResume(e -> Mono.empty()).block();
+        assertEquals(4, limiter.limit());
+
+        limiter.execute(Mono.delay(Duration.ofMillis(150))).block();
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void queuedCallsStartWhenASlotFrees() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofSeconds(5));
+        Sinks.One<String> first = Sinks.one();
+
+        Mono<String> running = limiter.execute(first.asMono()).cache();
+        running.subscribe();
+        Mono<String> queued = limiter.execute(Mono.just("second")).cache();
+        queued.subscribe();
+
+        assertEquals(1, limiter.queueDepth());
+        assertEquals(1.0, registry.get("search.upstream.queue.depth").gauge().value());
+
+        first.tryEmitValue("first");
+
+        assertEquals("second", queued.block(Duration.ofSeconds(1)));
+        assertEquals(0, limiter.queueDepth());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void callsWaitingTooLongAreShed() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofMillis(50));
+        limiter.execute(Mono.never()).subscribe();
+
+        assertThrows(UpstreamSaturatedException.class, () -> limiter.execute(Mono.just("late")).block());
+        assertEquals(0, limiter.queueDepth());
+        assertEquals(1.0, registry.get("search.upstream.queue.timeouts").counter().count());
+    }
+}
@@ -0,0 +1,112 @@
+package com.searchmiw.search.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHedgerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private RequestHedger hedger(double budgetPercent) {
+        return new RequestHedger(true, 0.95, 3, Duration.ofMillis(20), budgetPercent, List.of("en", "es"), registry);
+    }
+
+    // The first attempt hangs, every later one answers at once
+    private Supplier<Mono<String>> slowThenFast(AtomicInteger attempts) {
+        return () -> attempts.getAndIncrement() == 0 ? Mono.never() : Mono.just("hedge");
+    }
+
+    private void warmUp(RequestHedger hedger) {
+        warmUp(hedger, "en");
+    }
+
+    private void warmUp(RequestHedger hedger, String language) {
+        for (int i = 0; i < 3; i++) {
+            hedger.execute(language, () -> hedger.measure(language, Mono.just("fast"))).block();
+        }
+    }
+
+    private double hedges(String event) {
+        return registry.get("search.upstream.hedges").tag("event", event).counter().count();
+    }
+
+    @Test
+    void slowCallIsHedgedAndTheHedgeWins() {
+        RequestHedger hedger = hedger(100);
+        warmUp(hedger);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.execute("en", slowThenFast(attempts)).block(Duration.ofSeconds(2));
+
+        assertEquals("hedge", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, hedges("fired"));
+        assertEquals(1, hedges("won"));
+    }
+
+    @Test
+    void noHedgeBeforeEnoughSamplesForTheLanguage() {
+        RequestHedger hedger = hedger(100);
+        warmUp(hedger);
+        AtomicInteger attempts = new AtomicInteger();
+
+        hedger.execute("es", slowThenFast(attempts)).subscribe();
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, hedges("fired"));
+    }
+
+    @Test
+    void budgetCapsHedges() {
+        RequestHedger hedger = hedger(0);
+        warmUp(hedger);
+        AtomicInteger attempts = new AtomicInteger();
+
+        Mono<String> call = hedger.execute("en", slowThenFast(attempts));
+
+        assertThrows(IllegalStateException.class, () -> call.block(Duration.ofMillis(200)));
+        assertEquals(1, attempts.get());
+        assertEquals(1, hedges("denied"));
+    }
+
+    @Test
+    void disabledHedgerRunsTheCallAsIs() {
+        RequestHedger hedger = new RequestHedger(false, 0.95, 0, Duration.ZERO, 100, List.of("en"), registry);
+
+        assertEquals("fast", hedger.execute("en", () -> Mono.just("fast")).block());
+    }
+
+    @Test
+    void unconfiguredLanguagesShareOneLatencyBucket() {
+        RequestHedger hedger = hedger(100);
+        warmUp(hedger, "xx-made-up");
+        warmUp(hedger, "yy-made-up");
+
+        assertEquals(6, registry.get("search.upstream.latency").tag("language", RequestHedger.OTHER_LANGUAGES)
+                .timer().count());
+        assertNull(registry.find("search.upstream.latency").tag("language", "xx-made-up").timer());
+        assertEquals(1, registry.find("search.upstream.latency").timers().size());
+    }
+
+    @Test
+    void timeBeforeTheCallIsGrantedIsNotMeasured() {
+        RequestHedger hedger = hedger(100);
+
+        // Stands in for a wait in the concurrency limiter's queue
+        hedger.execute("en", () -> Mono.delay(Duration.ofMillis(200))
+                .then(hedger.measure("en", Mono.just("fast")))).block();
+
+        double measured = registry.get("search.upstream.latency").tag("language", "en").timer()
+                .totalTime(TimeUnit.MILLISECONDS);
+        assertTrue(measured < 100, "measured " + measured + "ms");
+    }
+}
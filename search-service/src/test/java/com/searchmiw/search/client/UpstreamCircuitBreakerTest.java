@@ -0,0 +1,92 @@
+package com.searchmiw.search.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamCircuitBreakerTest {
+
+    private static final String ENDPOINT = "wbsearchentities";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private UpstreamCircuitBreaker breaker(Duration openDuration) {
+        return new UpstreamCircuitBreaker(true, 50, 4, 10, openDuration, 2, registry);
+    }
+
+    private static void fail(UpstreamCircuitBreaker breaker, Throwable error) {
+        breaker.execute(ENDPOINT, Mono.error(error)).onErrorResume(e -> Mono.empty()).block();
+    }
+
+    @Test
+    void opensOnceTheFailureRateIsReachedAndFailsFast() {
+        UpstreamCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        breaker.execute(ENDPOINT, Mono.just("ok")).block();
+        breaker.execute(ENDPOINT, Mono.just("ok")).block();
+        fail(breaker, new TimeoutException());
+        assertEquals(UpstreamCircuitBreaker.State.CLOSED, breaker.state(ENDPOINT));
+
+        fail(breaker, WebClientResponseException.create(HttpStatus.SERVICE_UNAVAILABLE.value(), "", null, null, null));
+        assertEquals(UpstreamCircuitBreaker.State.OPEN, breaker.state(ENDPOINT));
+
+        AtomicInteger subscribed = new AtomicInteger();
+        Mono<String> call = breaker.execute(ENDPOINT, Mono.fromSupplier(() -> {
+            subscribed.incrementAndGet();
+            return "ok";
+        }));
+        assertThrows(UpstreamUnavailableException.class, call::block);
+        assertEquals(0, subscribed.get());
+        assertEquals(1, registry.get("search.upstream.circuit.rejected").tag("endpoint", ENDPOINT).counter().count());
+        assertEquals(2.0, registry.get("search.upstream.circuit.state").tag("endpoint", ENDPOINT).gauge().value());
+    }
+
+    @Test
+    void errorsThatSayNothingAboutWikidataDoNotOpenTheCircuit() {
+        UpstreamCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 10; i++) {
+            fail(breaker, new UpstreamSaturatedException("saturated"));
+            fail(breaker, WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "", null, null, null));
+        }
+
+        assertEquals(UpstreamCircuitBreaker.State.CLOSED, breaker.state(ENDPOINT));
+    }
+
+    @Test
+    void halfOpenProbesCloseTheCircuitWhenTheySucceed() throws InterruptedException {
+        UpstreamCircuitBreaker breaker = breaker(Duration.ofMillis(50));
+        for (int i = 0; i < 4; i++) {
+            fail(breaker, new TimeoutException());
+        }
+        assertEquals(UpstreamCircuitBreaker.State.OPEN, breaker.state(ENDPOINT));
+
+        Thread.sleep(80);
+        breaker.execute(ENDPOINT, Mono.just("probe")).block();
+        assertEquals(UpstreamCircuitBreaker.State.HALF_OPEN, breaker.state(ENDPOINT));
+        breaker.execute(ENDPOINT, Mono.just("probe")).block();
+
+        assertEquals(UpstreamCircuitBreaker.State.CLOSED, breaker.state(ENDPOINT));
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() throws InterruptedException {
+        UpstreamCircuitBreaker breaker = breaker(Duration.ofMillis(50));
+        for (int i = 0; i < 4; i++) {
+            fail(breaker, new TimeoutException());
+        }
+
+        Thread.sleep(80);
+        fail(breaker, new TimeoutException());
+
+        assertEquals(UpstreamCircuitBreaker.State.OPEN, breaker.state(ENDPOINT));
+        assertThrows(UpstreamUnavailableException.class, () -> breaker.execute(ENDPOINT, Mono.just("ok")).block());
+    }
+}
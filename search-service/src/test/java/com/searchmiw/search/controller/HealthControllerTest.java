@@ -1,14 +1,17 @@
 package com.searchmiw.search.controller;
 
+import com.searchmiw.search.cache.CacheWarmer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -18,11 +21,26 @@ class HealthControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @MockBean
+    private CacheWarmer cacheWarmer;
+
     @Test
     void testHealthEndpoint() throws Exception {
+        when(cacheWarmer.isReady()).thenReturn(true);
+
         mockMvc.perform(get("/api/health")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status", is("UP")));
     }
+
+    @Test
+    void testHealthEndpointWhileWarmingUp() throws Exception {
+        when(cacheWarmer.isReady()).thenReturn(false);
+
+        mockMvc.perform(get("/api/health")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status", is("WARMING_UP")));
+    }
 }
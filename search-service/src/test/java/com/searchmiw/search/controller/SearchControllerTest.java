@@ -1,9 +1,16 @@
 package com.searchmiw.search.controller;
 
+import com.searchmiw.search.model.BatchSearchRequest;
+import com.searchmiw.search.model.EntityExpansion;
 import com.searchmiw.search.model.SearchResult;
 import com.searchmiw.search.model.SearchResultItem;
+import com.searchmiw.search.model.SearchStreamEvent;
+import com.searchmiw.search.model.Suggestion;
 import com.searchmiw.search.service.HistoryService;
+import com.searchmiw.search.service.SearchCursor;
 import com.searchmiw.search.service.SearchService;
+import com.searchmiw.search.service.SuggestionService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -12,13 +19,22 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 
 import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 // Make sure all components are imported for the test
@@ -34,6 +50,22 @@ class SearchControllerTest {
     @MockBean
     private HistoryService historyService;
 
+    @MockBean
+    private SuggestionService suggestionService;
+
+    @BeforeEach
+    void setUp() {
+        when(historyService.recordSearchHistory(any(), any(), any())).thenReturn(Mono.empty());
+    }
+
+    // The controller returns a Mono, so the response is only rendered on async dispatch
+    private ResultActions performSearch(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
     @Test
     void testSearch() throws Exception {
         // Prepare test data
@@ -53,11 +85,10 @@ class SearchControllerTest {
         mockResult.setResults(Arrays.asList(item1));
         
         // Configure mocks
-        when(searchService.search(query, "en")).thenReturn(mockResult);
-        doNothing().when(historyService).recordSearchHistory(any(), any());
+        when(searchService.search(query, "en", null, false)).thenReturn(Mono.just(mockResult));
         
         // Execute and verify
-        mockMvc.perform(get("/api/search")
+        performSearch(get("/api/search")
                 .param("query", query)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -77,10 +108,10 @@ class SearchControllerTest {
         emptyResult.setResults(Collections.emptyList());
         
         // Configure mocks
-        when(searchService.search(query, "en")).thenReturn(emptyResult);
+        when(searchService.search(query, "en", null, false)).thenReturn(Mono.just(emptyResult));
         
         // Execute and verify
-        mockMvc.perform(get("/api/search")
+        performSearch(get("/api/search")
                 .param("query", query)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -114,10 +145,10 @@ class SearchControllerTest {
         einsteinResult.setResults(Arrays.asList(einstein, einsteinInstitute));
         
         // Configure mock
-        when(searchService.search(query, "en")).thenReturn(einsteinResult);
+        when(searchService.search(query, "en", null, false)).thenReturn(Mono.just(einsteinResult));
         
         // Execute and verify
-        mockMvc.perform(get("/api/search")
+        performSearch(get("/api/search")
                 .param("query", query)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -150,10 +181,10 @@ class SearchControllerTest {
         mockResult.setResults(Arrays.asList(item));
         
         // Configure mock with specific language parameter
-        when(searchService.search(query, language)).thenReturn(mockResult);
+        when(searchService.search(query, language, null, false)).thenReturn(Mono.just(mockResult));
         
         // Execute and verify
-        mockMvc.perform(get("/api/search")
+        performSearch(get("/api/search")
                 .param("query", query)
                 .param("language", language)
                 .contentType(MediaType.APPLICATION_JSON))
@@ -182,10 +213,10 @@ class SearchControllerTest {
         mockResult.setResults(Arrays.asList(item));
         
         // Configure mocks
-        when(searchService.search(query, "en")).thenReturn(mockResult);
+        when(searchService.search(query, "en", null, false)).thenReturn(Mono.just(mockResult));
         
         // Execute and verify
-        mockMvc.perform(get("/api/search")
+        performSearch(get("/api/search")
                 .param("query", query)
                 .param("userId", userId.toString())
                 .contentType(MediaType.APPLICATION_JSON))
@@ -193,6 +224,252 @@ class SearchControllerTest {
                 .andExpect(jsonPath("$.query", is(query)));
                 
         // Verify that history was recorded
-        verify(historyService).recordSearchHistory(eq(userId), eq(query));
+        verify(historyService).recordSearchHistory(eq(userId), eq(query), eq("en"));
+    }
+
+    @Test
+    void testSearchPassesTopK() throws Exception {
+        SearchResult mockResult = SearchResult.builder()
+                .query("einstein")
+                .results(Collections.emptyList())
+                .build();
+        when(searchService.search("einstein", "en", 5, false)).thenReturn(Mono.just(mockResult));
+
+        performSearch(get("/api/search")
+                .param("query", "einstein")
+                .param("topK", "5")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(searchService).search("einstein", "en", 5, false);
+    }
+
+    @Test
+    void testExactSearchIsPassedThrough() throws Exception {
+        when(searchService.search("parts", "en", null, true)).thenReturn(Mono.just(SearchResult.builder()
+                .query("parts")
+                .results(Collections.emptyList())
+                .build()));
+
+        performSearch(get("/api/search")
+                .param("query", "parts")
+                .param("exact", "true")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.didYouMean").doesNotExist());
+
+        verify(searchService).search("parts", "en", null, true);
+    }
+
+    @Test
+    void testSearchWithCursorFetchesThatPageWithoutRecordingHistoryAgain() throws Exception {
+        SearchResult page = SearchResult.builder()
+                .query("einstein")
+                .results(Collections.emptyList())
+                .offset(20)
+                .limit(10)
+                .build();
+        when(searchService.searchPage("einstein", "en", 20, 10, false)).thenReturn(Mono.just(page));
+
+        performSearch(get("/api/search")
+                .param("query", "einstein")
+                .param("userId", "7")
+                .param("cursor", new SearchCursor(20, 10).encode())
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset", is(20)))
+                .andExpect(jsonPath("$.limit", is(10)));
+
+        verify(historyService, never()).recordSearchHistory(any(), any(), any());
+    }
+
+    @Test
+    void testSearchWithLimitDefaultsOffsetToZero() throws Exception {
+        when(searchService.searchPage("einstein", "en", 0, 5, false)).thenReturn(Mono.just(SearchResult.builder()
+                .query("einstein")
+                .results(Collections.emptyList())
+                .build()));
+
+        performSearch(get("/api/search")
+                .param("query", "einstein")
+                .param("limit", "5")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(searchService).searchPage("einstein", "en", 0, 5, false);
+    }
+
+    @Test
+    void testSearchWithInvalidCursorIsRejected() throws Exception {
+        mockMvc.perform(get("/api/search")
+                .param("query", "einstein")
+                .param("cursor", "not-a-cursor")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testStreamAsNdjson() throws Exception {
+        when(searchService.searchStream("einstein", "en")).thenReturn(Flux.just(
+                SearchStreamEvent.results("einstein", Arrays.asList(SearchResultItem.builder().id("Q937").build())),
+                SearchStreamEvent.summary(1, 120, false)));
+
+        performSearch(get("/api/search/stream")
+                .param("query", "einstein")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"type\":\"results\",\"subQuery\":\"einstein\",\"results\":[{\"id\":\"Q937\",\"title\":null,\"description\":null,\"url\":null}]}\n"
+                        + "{\"type\":\"summary\",\"totalResults\":1,\"searchTime\":120,\"partial\":false}\n"));
+    }
+
+    @Test
+    void testStreamAsServerSentEvents() throws Exception {
+        when(searchService.searchStream("einstein", "en")).thenReturn(Flux.just(
+                SearchStreamEvent.summary(0, 5, false)));
+
+        performSearch(get("/api/search/stream")
+                .param("query", "einstein")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("event:summary")));
+    }
+
+    @Test
+    void testBatchSearch() throws Exception {
+        when(searchService.searchBatch(anyList())).thenReturn(Mono.just(Arrays.asList(
+                SearchResult.builder().query("einstein").results(Collections.emptyList()).build(),
+                SearchResult.builder().query("curie").results(Collections.emptyList()).build())));
+
+        performSearch(post("/api/search/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"query\":\"einstein\",\"language\":\"en\"},{\"query\":\"curie\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].query", is("einstein")))
+                .andExpect(jsonPath("$[1].query", is("curie")));
+
+        verify(searchService).searchBatch(Arrays.asList(
+                new BatchSearchRequest("einstein", "en"), new BatchSearchRequest("curie", "en")));
+    }
+
+    @Test
+    void testBatchSearchRejectsEmptyQuery() throws Exception {
+        mockMvc.perform(post("/api/search/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"query\":\" \"}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSuggestIsAnsweredSynchronouslyAndCapsTheLimit() throws Exception {
+        when(suggestionService.suggest("albert e", "en", 20))
+                .thenReturn(Collections.singletonList(new Suggestion("albert einstein", 42)));
+
+        mockMvc.perform(get("/api/search/suggest")
+                        .param("prefix", "albert e")
+                        .param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].text").value("albert einstein"))
+                .andExpect(jsonPath("$[0].weight").value(42));
+    }
+
+    @Test
+    void testSearchWithResultsIsRecordedForSuggestions() throws Exception {
+        SearchResult result = SearchResult.builder()
+                .query("Marie Curie")
+                .results(Collections.singletonList(SearchResultItem.builder().id("Q7186").build()))
+                .totalResults(1)
+                .build();
+        when(searchService.search("Marie Curie", "en", null, false)).thenReturn(Mono.just(result));
+
+        performSearch(get("/api/search").param("query", "Marie Curie"))
+                .andExpect(status().isOk());
+
+        verify(suggestionService).record("Marie Curie", "en");
+    }
+
+    @Test
+    void testLanguagesAreSearchedInOneRequest() throws Exception {
+        SearchResult result = SearchResult.builder()
+                .query("Picasso")
+                .results(Collections.singletonList(SearchResultItem.builder().id("Q5593").build()))
+                .totalResults(1)
+                .build();
+        when(searchService.searchLanguages("Picasso", Arrays.asList("es", "en"), null, false)).thenReturn(Mono.just(result));
+
+        performSearch(get("/api/search")
+                        .param("query", "Picasso")
+                        .param("languages", "es,en")
+                        .param("userId", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].id").value("Q5593"));
+
+        verify(historyService).recordSearchHistory(7L, "Picasso", "es");
+    }
+
+    @Test
+    void testLanguagesCannotBePaged() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("query", "Picasso")
+                        .param("languages", "es,en")
+                        .param("limit", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testExpandAddsEntityDetailsToTheResults() throws Exception {
+        SearchResult result = SearchResult.builder()
+                .query("Picasso")
+                .results(Collections.singletonList(SearchResultItem.builder().id("Q5593").build()))
+                .totalResults(1)
+                .build();
+        SearchResult expanded = result.toBuilder()
+                .results(Collections.singletonList(SearchResultItem.builder()
+                        .id("Q5593")
+                        .aliases(Collections.singletonList("Pablo Ruiz Picasso"))
+                        .build()))
+                .build();
+        when(searchService.search("Picasso", "es", null, false)).thenReturn(Mono.just(result));
+        when(searchService.expand(result, "es", EnumSet.of(EntityExpansion.ALIASES, EntityExpansion.IMAGE)))
+                .thenReturn(Mono.just(expanded));
+
+        performSearch(get("/api/search")
+                        .param("query", "Picasso")
+                        .param("language", "es")
+                        .param("expand", "aliases,Image"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].aliases[0]").value("Pablo Ruiz Picasso"))
+                .andExpect(jsonPath("$.results[0].claims").doesNotExist());
+    }
+
+    @Test
+    void testUnknownExpansionIsRejected() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("query", "Picasso")
+                        .param("expand", "sitelinks"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCorrectedSearchIsRecordedUnderTheCorrection() throws Exception {
+        SearchResult result = SearchResult.builder()
+                .query("Marie Curei")
+                .results(Collections.singletonList(SearchResultItem.builder().id("Q7186").build()))
+                .totalResults(1)
+                .didYouMean("marie curie")
+                .build();
+        when(searchService.search("Marie Curei", "en", null, false)).thenReturn(Mono.just(result));
+
+        performSearch(get("/api/search").param("query", "Marie Curei").param("userId", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.didYouMean").value("marie curie"));
+
+        verify(suggestionService).record("marie curie", "en");
+        verify(suggestionService, never()).record(eq("Marie Curei"), any());
+        verify(historyService).recordSearchHistory(3L, "marie curie", "en");
     }
 }
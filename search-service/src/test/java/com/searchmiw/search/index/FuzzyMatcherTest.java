@@ -0,0 +1,58 @@
+package com.searchmiw.search.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyMatcherTest {
+
+    private final FuzzyMatcher matcher = FuzzyMatcher.build(Map.of(
+            "albert einstein", 50L,
+            "albert camus", 20L,
+            "marie curie", 30L,
+            "mario", 5L,
+            "maria", 9L,
+            "ada", 3L), 2);
+
+    @Test
+    void automatonBoundsTheEditDistance() {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton("einstein", 2);
+
+        assertEquals(0, automaton.distance("einstein"));
+        assertEquals(1, automaton.distance("einstain"));
+        assertEquals(2, automaton.distance("einstien"));
+        assertEquals(1, automaton.distance("einsteins"));
+        assertEquals(-1, automaton.distance("eisntien"));
+        assertEquals(-1, automaton.distance("frankenstein"));
+    }
+
+    @Test
+    void misspellingsAreCorrectedToTheNearestKnownTerm() {
+        assertEquals("albert einstein", matcher.nearest("albert einstien"));
+        assertEquals("albert einstein", matcher.nearest("albrt einstein"));
+        assertEquals("marie curie", matcher.nearest("mary curie"));
+    }
+
+    @Test
+    void shortTermsSharingNoTrigramAreStillCorrected() {
+        // "axa" and "ada" have no trigram in common, yet are one substitution apart
+        assertEquals("ada", matcher.nearest("axa"));
+        assertEquals("ada", matcher.nearest("adam"));
+    }
+
+    @Test
+    void heavierTermWinsAtEqualDistance() {
+        assertEquals("maria", matcher.nearest("marix"));
+    }
+
+    @Test
+    void knownShortOrDistantTermsAreLeftAlone() {
+        assertNull(matcher.nearest("albert einstein"));
+        // Too short to correct
+        assertNull(matcher.nearest("ax"));
+        assertNull(matcher.nearest("isaac newton"));
+        assertNull(FuzzyMatcher.EMPTY.nearest("anything"));
+    }
+}
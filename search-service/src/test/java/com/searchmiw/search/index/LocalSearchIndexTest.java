@@ -0,0 +1,152 @@
+package com.searchmiw.search.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchmiw.search.model.SearchResultItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalSearchIndexTest {
+
+    // The official dump layout: one array, an entity per line, fields we skip included
+    private static final String DUMP = """
+            [
+            {"type":"item","id":"Q937","labels":{"en":{"language":"en","value":"Albert Einstein"},"es":{"language":"es","value":"Albert Einstein"}},"descriptions":{"en":{"language":"en","value":"German-born theoretical physicist"},"es":{"language":"es","value":"físico alemán"}},"aliases":{"en":[{"language":"en","value":"Einstein"}]},"claims":{"P31":[{"mainsnak":{"datavalue":{"value":{"id":"Q5"}}}}]},"sitelinks":{}},
+            {"type":"item","id":"Q5","labels":{"en":{"language":"en","value":"human"}},"descriptions":{"en":{"language":"en","value":"species that includes Einstein"}},"aliases":{}},
+            {"type":"item","id":"Q1","labels":{"en":{"language":"en","value":"Universe"},"fr":{"language":"fr","value":"Univers"}},"descriptions":{},"aliases":{}}
+            ]
+            """;
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private LocalSearchIndex index() {
+        LocalSearchIndex index = new LocalSearchIndex(dir.resolve("index").toString(), 100, registry);
+        index.open();
+        return index;
+    }
+
+    private LocalIndexImporter importer(LocalSearchIndex index, Path dumps) {
+        return importer(index, dumps, 32);
+    }
+
+    private LocalIndexImporter importer(LocalSearchIndex index, Path dumps, int maxSegments) {
+        return new LocalIndexImporter(index, new ObjectMapper(), dumps.toString(), List.of("en", "es"), 2, maxSegments);
+    }
+
+    private Path dumps() throws IOException {
+        Path dumps = Files.createDirectories(dir.resolve("dumps"));
+        Files.writeString(dumps.resolve("latest-all.json"), DUMP);
+        return dumps;
+    }
+
+    private static List<String> ids(LocalSearchIndex index, String term, String language) {
+        return index.search(term, language).items().stream().map(SearchResultItem::getId).toList();
+    }
+
+    @Test
+    void labelAndAliasMatchesRankAboveDescriptionMatches() throws IOException {
+        LocalSearchIndex index = index();
+        importer(index, dumps()).importDumps();
+
+        assertEquals(List.of("Q937", "Q5"), ids(index, "Einstein", "en"));
+        SearchResultItem hit = index.search("einstein", "en").items().get(0);
+        assertEquals("German-born theoretical physicist", hit.getDescription());
+        assertEquals("https://www.wikidata.org/wiki/Q937", hit.getUrl());
+    }
+
+    @Test
+    void everyWordOfTheTermMustMatch() throws IOException {
+        LocalSearchIndex index = index();
+        importer(index, dumps()).importDumps();
+
+        assertEquals(List.of("Q937"), ids(index, "albert physicist", "en"));
+        assertTrue(index.search("albert universe", "en").isEmpty());
+    }
+
+    @Test
+    void languagesAreIndexedSeparately() throws IOException {
+        LocalSearchIndex index = index();
+        importer(index, dumps()).importDumps();
+
+        assertEquals(List.of("Q937"), ids(index, "físico", "es"));
+        assertTrue(index.search("physicist", "es").isEmpty());
+        // Not one of the imported languages
+        assertTrue(index.search("univers", "fr").isEmpty());
+    }
+
+    @Test
+    void laterImportHidesOlderVersionsOfAnEntity() throws IOException {
+        LocalSearchIndex index = index();
+        Path dumps = dumps();
+        LocalIndexImporter importer = importer(index, dumps);
+        importer.importDumps();
+
+        // An incremental, gzipped subset with one entity per line
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(dumps.resolve("update.ndjson.gz")))) {
+            out.write("""
+                    {"id":"Q937","labels":{"en":{"language":"en","value":"Albert"}},"descriptions":{},"aliases":{}}
+                    """.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(1, importer.importDumps());
+
+        assertEquals(List.of("Q5"), ids(index, "einstein", "en"));
+        assertEquals(List.of("Q937"), ids(index, "albert", "en"));
+    }
+
+    @Test
+    void segmentsSurviveReopeningAndImportedDumpsAreSkipped() throws IOException {
+        LocalSearchIndex index = index();
+        Path dumps = dumps();
+        importer(index, dumps).importDumps();
+
+        LocalSearchIndex reopened = index();
+
+        // segment-size 2 splits the three English entities over two segments
+        assertEquals(3, reopened.segmentCount());
+        assertEquals(List.of("Q937", "Q5"), ids(reopened, "einstein", "en"));
+        assertEquals(0, importer(reopened, dumps).importDumps());
+    }
+
+    @Test
+    void importsPastTheSegmentLimitMergeSegmentsKeepingTheNewestVersions() throws IOException {
+        LocalSearchIndex index = index();
+        Path dumps = dumps();
+        LocalIndexImporter importer = importer(index, dumps, 1);
+        importer.importDumps();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(dumps.resolve("update.ndjson.gz")))) {
+            out.write("""
+                    {"id":"Q937","labels":{"en":{"language":"en","value":"Albert"}},"descriptions":{},"aliases":{}}
+                    {"id":"Q42","labels":{"en":{"language":"en","value":"Douglas Adams"}},"descriptions":{"en":{"language":"en","value":"English writer"}},"aliases":{}}
+                    """.getBytes(StandardCharsets.UTF_8));
+        }
+        importer.importDumps();
+
+        // Three English segments (two from the dump, one from the update) merged down to one,
+        // next to the single Spanish one
+        assertEquals(2, index.segmentCount());
+        try (var files = Files.list(dir.resolve("index").resolve("en"))) {
+            assertEquals(1, files.count());
+        }
+        LocalSearchIndex reopened = index();
+        for (LocalSearchIndex searched : List.of(index, reopened)) {
+            assertEquals(List.of("Q5"), ids(searched, "einstein", "en"));
+            assertEquals(List.of("Q937"), ids(searched, "albert", "en"));
+            assertEquals(List.of("Q42"), ids(searched, "english writer", "en"));
+            assertEquals(List.of("Q1"), ids(searched, "universe", "en"));
+            assertEquals("species that includes Einstein", searched.search("human", "en").items().get(0).getDescription());
+        }
+    }
+}
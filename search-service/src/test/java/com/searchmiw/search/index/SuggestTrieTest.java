@@ -0,0 +1,52 @@
+package com.searchmiw.search.index;
+
+import com.searchmiw.search.model.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestTrieTest {
+
+    private final SuggestTrie trie = SuggestTrie.build(Map.of(
+            "albert einstein", 50L,
+            "albert camus", 20L,
+            "alba", 70L,
+            "al", 5L,
+            "marie curie", 30L,
+            "münchen", 8L));
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getText).toList();
+    }
+
+    @Test
+    void completionsComeHeaviestFirst() {
+        assertEquals(List.of("alba", "albert einstein", "albert camus", "al"), texts(trie.complete("al", 10)));
+        assertEquals(50L, trie.complete("albert e", 1).get(0).getWeight());
+    }
+
+    @Test
+    void limitStopsTheWalkEarly() {
+        assertEquals(List.of("alba", "albert einstein"), texts(trie.complete("a", 2)));
+    }
+
+    @Test
+    void emptyPrefixCompletesEverything() {
+        assertEquals(List.of("alba", "albert einstein", "marie curie"), texts(trie.complete("", 3)));
+    }
+
+    @Test
+    void unknownPrefixHasNoCompletions() {
+        assertTrue(trie.complete("albertx", 10).isEmpty());
+        assertTrue(trie.complete("z", 10).isEmpty());
+        assertTrue(SuggestTrie.EMPTY.complete("a", 10).isEmpty());
+    }
+
+    @Test
+    void nonAsciiPrefixes() {
+        assertEquals(List.of("münchen"), texts(trie.complete("mü", 10)));
+    }
+}
@@ -3,36 +3,39 @@ package com.searchmiw.search.integration;
 import com.searchmiw.search.model.WikidataResponse;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+/**
+ * Calls the Wikidata API at {@code wikidata.api.url}, so it only runs with
+ * {@code -DrunLiveTests=true}. By default that is the wikidata-stub module on
+ * localhost:8090; add {@code -Dwikidata.api.url=https://www.wikidata.org/w/api.php}
+ * to call the real API.
+ */
 @SpringBootTest
 @Tag("integration")
+@EnabledIfSystemProperty(named = "runLiveTests", matches = "true")
 public class WikidataApiIntegrationTest {
 
     @Autowired
     private WebClient.Builder webClientBuilder;
 
+    @Value("${wikidata.api.url}")
+    private String wikidataApiUrl;
+
     @Test
     void testRealAlbertEinsteinApiCall() {
-        // Skip this test by default since it makes a real API call
-        // Set this to true to run the real API test
-        boolean runLiveTest = true;
-        
-        if (!runLiveTest) {
-            System.out.println("Skipping live Wikidata API test");
-            return;
-        }
-
         String query = "Albert Einstein";
         String language = "en";
         
         String url = UriComponentsBuilder
-                .fromHttpUrl("https://www.wikidata.org/w/api.php")
+                .fromHttpUrl(wikidataApiUrl)
                 .queryParam("action", "wbsearchentities")
                 .queryParam("search", query)
                 .queryParam("language", language)
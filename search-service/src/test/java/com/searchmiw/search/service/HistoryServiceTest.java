@@ -44,7 +44,7 @@ class HistoryServiceTest {
     @Test
     void doNotRecordSearchHistoryWhenUserIdIsNull() {
         // When
-        historyService.recordSearchHistory(null, "test query");
+        historyService.recordSearchHistory(null, "test query", "en").block();
         
         // Then
         verify(webClientMock, never()).post();
@@ -59,7 +59,7 @@ class HistoryServiceTest {
         when(responseSpecMock.toBodilessEntity()).thenReturn(Mono.empty());
         
         // When
-        historyService.recordSearchHistory(123L, "test query");
+        historyService.recordSearchHistory(123L, "test query", "en").block();
         
         // Then
         verify(webClientMock).post();
@@ -0,0 +1,44 @@
+package com.searchmiw.search.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryNormalizerTest {
+
+    private final QueryNormalizer normalizer = new QueryNormalizer(Collections.emptySet(), Collections.emptySet());
+
+    @Test
+    void spellingVariantsShareOneCanonicalForm() {
+        assertEquals("einstein", normalizer.normalize("Einstein", "en"));
+        assertEquals("einstein", normalizer.normalize(" einstein ", "en"));
+        assertEquals("einstein", normalizer.normalize("EINSTEIN", "en"));
+    }
+
+    @Test
+    void collapsesWhitespaceAndRemovesDuplicateWords() {
+        assertEquals("albert einstein", normalizer.normalize("Albert \t einstein  Einstein", "en"));
+    }
+
+    @Test
+    void composesDecomposedCharacters() {
+        // "Go" followed by a combining diaeresis becomes the precomposed form
+        assertEquals("g\u00f6del", normalizer.normalize("Go\u0308del", "de"));
+    }
+
+    @Test
+    void usesTheLanguageCaseRules() {
+        assertEquals("ıstanbul", normalizer.normalize("ISTANBUL", "tr"));
+    }
+
+    @Test
+    void languageSpecificOptOuts() {
+        QueryNormalizer configured = new QueryNormalizer(Set.of("de"), Set.of("la"));
+
+        assertEquals("Die Welt", configured.normalize("Die  Welt", "de"));
+        assertEquals("ora pro nobis ora", configured.normalize("Ora pro nobis ora", "la"));
+    }
+}
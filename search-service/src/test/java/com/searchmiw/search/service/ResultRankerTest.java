@@ -0,0 +1,65 @@
+package com.searchmiw.search.service;
+
+import com.searchmiw.search.model.SearchResultItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultRankerTest {
+
+    private final ResultRanker ranker = new ResultRanker(2.0, 100);
+
+    @Test
+    void entitiesReturnedBySeveralSubQueriesRankFirst() {
+        ResultRanker.Ranking ranking = ranker.rank(List.of(
+                items(),
+                items("Q1", "Q2", "Q3"),
+                items("Q4", "Q3")));
+
+        assertEquals("Q3", ranking.items().get(0).getId());
+        assertEquals(4, ranking.totalMatches());
+    }
+
+    @Test
+    void fullQueryMatchOutranksASingleWordMatch() {
+        ResultRanker.Ranking ranking = ranker.rank(List.of(
+                items("Q9", "Q8"),
+                items("Q1", "Q2")));
+
+        assertEquals(Arrays.asList("Q9", "Q8", "Q1", "Q2"), ids(ranking));
+    }
+
+    @Test
+    void keepsOnlyTheBestK() {
+        ResultRanker small = new ResultRanker(2.0, 2);
+
+        ResultRanker.Ranking ranking = small.rank(List.of(
+                items("Q1"),
+                items("Q2", "Q3", "Q1"),
+                items("Q4", "Q5")));
+
+        assertEquals(Arrays.asList("Q1", "Q2"), ids(ranking));
+        assertEquals(5, ranking.totalMatches());
+    }
+
+    @Test
+    void tiesKeepSubQueryOrder() {
+        ResultRanker.Ranking ranking = ranker.rank(List.of(
+                items(),
+                items("Q2"),
+                items("Q1")));
+
+        assertEquals(Arrays.asList("Q2", "Q1"), ids(ranking));
+    }
+
+    private static List<SearchResultItem> items(String... ids) {
+        return Arrays.stream(ids).map(id -> SearchResultItem.builder().id(id).build()).toList();
+    }
+
+    private static List<String> ids(ResultRanker.Ranking ranking) {
+        return ranking.items().stream().map(SearchResultItem::getId).toList();
+    }
+}
@@ -1,25 +1,51 @@
 package com.searchmiw.search.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.searchmiw.search.cache.SearchKey;
+import com.searchmiw.search.client.UpstreamCircuitBreaker;
+import com.searchmiw.search.controller.SearchController;
+import com.searchmiw.search.client.UpstreamSaturatedException;
+import com.searchmiw.search.index.LocalIndexImporter;
+import com.searchmiw.search.index.LocalSearchIndex;
+import com.searchmiw.search.model.BatchSearchRequest;
+import com.searchmiw.search.model.EntityExpansion;
 import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.SearchResultItem;
+import com.searchmiw.search.model.SearchStreamEvent;
+import com.searchmiw.search.model.Suggestion;
 import com.searchmiw.search.model.WikidataResponse;
 import com.searchmiw.search.model.WikidataSearchEntity;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -28,6 +54,18 @@ class SearchServiceTest {
     @Autowired
     private SearchService searchService;
 
+    @Autowired
+    private SearchController searchController;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     @MockBean
     private WebClient.Builder webClientBuilder;
 
@@ -53,6 +91,8 @@ class SearchServiceTest {
         
         // Set the Wikidata API URL via reflection since it's a private field
         ReflectionTestUtils.setField(searchService, "wikidataApiUrl", "https://www.wikidata.org/w/api.php");
+        // Drop the client cached by a previous test so this test's mocks are used
+        ReflectionTestUtils.setField(searchService, "webClient", null);
     }
 
 
@@ -65,10 +105,10 @@ class SearchServiceTest {
         emptyResponse.setSearch(null);
         
         // Configure mock response
-        when(responseSpec.bodyToMono(WikidataResponse.class)).thenReturn(Mono.just(emptyResponse));
+        when(responseSpec.bodyToMono(DataBuffer.class)).thenReturn(body(emptyResponse));
         
         // Execute search
-        SearchResult result = searchService.search("no results", "en");
+        SearchResult result = searchService.search("no results", "en").block();
         
         // Verify results
         assertNotNull(result);
@@ -80,10 +120,10 @@ class SearchServiceTest {
     @Test
     void testSearchWithException() {
         // Configure mock to throw exception
-        when(responseSpec.bodyToMono(WikidataResponse.class)).thenReturn(Mono.error(new RuntimeException("API Error")));
+        when(responseSpec.bodyToMono(DataBuffer.class)).thenReturn(Mono.error(new RuntimeException("API Error")));
         
         // Execute search
-        SearchResult result = searchService.search("error query", "en");
+        SearchResult result = searchService.search("error query", "en").block();
         
         // Verify results - should return empty result
         assertNotNull(result);
@@ -91,4 +131,502 @@ class SearchServiceTest {
         assertEquals(0, result.getTotalResults());
         assertTrue(result.getResults().isEmpty());
     }
+
+    @Test
+    void testMultiWordSearchMergesInPriorityOrder() {
+        // The full query answers last, but its results must still come first
+        stubTerm("search=albert einstein&", Mono.delay(Duration.ofMillis(200))
+                .then(body(response(entity("Q937"), entity("Q1")))));
+        stubTerm("search=albert&", body(response(entity("Q2"), entity("Q937"))));
+        stubTerm("search=einstein&", body(response(entity("Q3"))));
+
+        SearchResult result = searchService.search("Albert Einstein", "en").block();
+
+        assertEquals(4, result.getTotalResults());
+        assertEquals(Arrays.asList("Q937", "Q1", "Q2", "Q3"),
+                result.getResults().stream().map(SearchResultItem::getId).toList());
+    }
+
+    @Test
+    void testRepeatedSearchIsServedFromCache() {
+        when(responseSpec.bodyToMono(DataBuffer.class)).thenReturn(body(response(entity("Q42"))));
+
+        SearchResult first = searchService.search("cached", "en").block();
+        SearchResult second = searchService.search("cached", "en").block();
+
+        assertEquals(first, second);
+        verify(webClient, times(1)).get();
+    }
+
+    @Test
+    void testConcurrentIdenticalSearchesShareOneUpstreamCall() {
+        when(responseSpec.bodyToMono(DataBuffer.class)).thenReturn(
+                Mono.delay(Duration.ofMillis(200)).then(body(response(entity("Q7")))));
+        double coalescedBefore = meterRegistry.counter("search.cache.lookups",
+                "cache", "wikidata-searches", "outcome", "coalesced").count();
+
+        // Both calls start before the first load has completed
+        Mono<SearchResult> first = searchService.search("trending", "en");
+        Mono<SearchResult> second = searchService.search("trending", "en");
+        List<SearchResult> results = Mono.zip(first, second, Arrays::asList).block();
+
+        assertEquals(results.get(0), results.get(1));
+        verify(webClient, times(1)).get();
+        assertEquals(coalescedBefore + 1, meterRegistry.counter("search.cache.lookups",
+                "cache", "wikidata-searches", "outcome", "coalesced").count());
+    }
+
+    @Test
+    void testReloadKeepsLastGoodResultWhenWikidataFails() {
+        when(responseSpec.bodyToMono(DataBuffer.class)).thenReturn(Mono.error(new RuntimeException("API Error")));
+        SearchResult previous = SearchResult.builder()
+                .query("stale")
+                .results(Arrays.asList(SearchResultItem.builder().id("Q1").build()))
+                .totalResults(1)
+                .build();
+
+        SearchResult reloaded = searchService.reload(new SearchKey("stale", "en"), previous).block();
+
+        assertSame(previous, reloaded);
+    }
+
+    @Test
+    void testFailedSubQueryMarksResultAsPartial() {
+        when(responseSpec.bodyToMono(DataBuffer.class)).thenReturn(Mono.error(new RuntimeException("API Error")));
+
+        SearchResult result = searchService.search("partial query", "en").block();
+
+        assertTrue(result.isPartial());
+    }
+
+    @Test
+    void testQueriesSharingAWordReuseItsCachedResults() {
+        stubTerm("search=marie curie&", body(response(entity("Q7186"))));
+        stubTerm("search=marie&", body(response(entity("Q7186"), entity("Q1"))));
+        stubTerm("search=curie&", body(response(entity("Q2"))));
+        stubTerm("search=curie radium&", body(response()));
+        stubTerm("search=radium&", body(response(entity("Q1128"))));
+
+        searchService.search("Marie Curie", "en").block();
+        SearchResult second = searchService.search("Curie radium", "en").block();
+
+        assertEquals(Arrays.asList("Q2", "Q1128"),
+                second.getResults().stream().map(SearchResultItem::getId).toList());
+        verify(requestHeadersUriSpec, times(1)).uri(contains("search=curie&"));
+    }
+
+    @Test
+    void testQueryVariantsShareOneCacheEntry() {
+        when(responseSpec.bodyToMono(DataBuffer.class)).thenReturn(body(response(entity("Q5593"))));
+
+        searchService.search("Picasso", "es").block();
+        SearchResult variant = searchService.search("  PICASSO ", "es").block();
+
+        assertEquals("  PICASSO ", variant.getQuery());
+        assertEquals(1, variant.getTotalResults());
+        verify(webClient, times(1)).get();
+    }
+
+    @Test
+    void testTopKTrimsTheRankedResults() {
+        stubTerm("search=ada lovelace&", body(response(entity("Q7259"), entity("Q1"))));
+        stubTerm("search=ada&", body(response(entity("Q2"), entity("Q7259"))));
+        stubTerm("search=lovelace&", body(response(entity("Q3"))));
+
+        SearchResult top = searchService.search("Ada Lovelace", "en", 2).block();
+        SearchResult all = searchService.search("Ada Lovelace", "en", 10).block();
+
+        assertEquals(Arrays.asList("Q7259", "Q1"), top.getResults().stream().map(SearchResultItem::getId).toList());
+        assertEquals(4, top.getTotalResults());
+        assertEquals(4, all.getResults().size());
+        verify(requestHeadersUriSpec, times(1)).uri(contains("search=ada lovelace&"));
+    }
+
+    @Test
+    void testPagingPastCachedResultsContinuesIntoWikidata() {
+        stubTerm("search=mozart&", body(response(entity("Q254"), entity("Q1")), 2));
+        stubTerm("continue=2", body(response(entity("Q1"), entity("Q2"), entity("Q3")), null));
+
+        SearchResult first = searchService.searchPage("Mozart", "en", 0, 2).block();
+        SearchCursor next = SearchCursor.decode(first.getNextCursor());
+        SearchResult second = searchService.searchPage("Mozart", "en", next.offset(), next.limit()).block();
+        SearchResult again = searchService.searchPage("Mozart", "en", 2, 2).block();
+
+        assertEquals(Arrays.asList("Q254", "Q1"), first.getResults().stream().map(SearchResultItem::getId).toList());
+        assertEquals(Arrays.asList("Q2", "Q3"), second.getResults().stream().map(SearchResultItem::getId).toList());
+        assertNull(second.getNextCursor());
+        assertEquals(4, again.getTotalResults());
+        verify(requestHeadersUriSpec, times(1)).uri(contains("continue=2"));
+    }
+
+    @Test
+    void testPagingFarPastTheMaximumDepthAnswersAnEmptyLastPage() {
+        stubTerm("search=beethoven&", body(response(entity("Q255"), entity("Q1")), null));
+        SearchCursor crafted = SearchCursor.decode(new SearchCursor(Integer.MAX_VALUE - 5, Integer.MAX_VALUE).encode());
+
+        SearchResult byOffset = searchService.searchPage("Beethoven", "en", Integer.MAX_VALUE, 10).block();
+        SearchResult byCursor = searchService.searchPage("Beethoven", "en", crafted.offset(), crafted.limit()).block();
+
+        assertTrue(byOffset.getResults().isEmpty());
+        assertEquals(500, byOffset.getOffset());
+        assertNull(byOffset.getNextCursor());
+        assertTrue(byCursor.getResults().isEmpty());
+        assertEquals(50, byCursor.getLimit());
+        assertNull(byCursor.getNextCursor());
+    }
+
+    @Test
+    void testStreamSendsFullQueryFirstAndEachEntityOnce() {
+        // The full query is the slowest sub-query, yet its results still lead the stream
+        stubTerm("search=isaac newton&", Mono.delay(Duration.ofMillis(200))
+                .then(body(response(entity("Q935"), entity("Q1")))));
+        stubTerm("search=isaac&", body(response(entity("Q2"), entity("Q935"))));
+        stubTerm("search=newton&", body(response(entity("Q1"))));
+
+        List<SearchStreamEvent> events = searchService.searchStream("Isaac Newton", "en").collectList().block();
+
+        assertEquals("isaac newton", events.get(0).getSubQuery());
+        assertEquals(Arrays.asList("Q935", "Q1"),
+                events.get(0).getResults().stream().map(SearchResultItem::getId).toList());
+        assertEquals(Arrays.asList("Q2"),
+                events.get(1).getResults().stream().map(SearchResultItem::getId).toList());
+        assertEquals(3, events.size());
+        SearchStreamEvent summary = events.get(2);
+        assertEquals(SearchStreamEvent.SUMMARY, summary.getType());
+        assertEquals(3L, summary.getTotalResults());
+        assertFalse(summary.getPartial());
+    }
+
+    @Test
+    void testBatchFetchesSharedTermsOnceAndKeepsRequestOrder() {
+        stubTerm("search=pablo picasso&", body(response(entity("Q5593"))));
+        stubTerm("search=pablo&", body(response(entity("Q1"))));
+        stubTerm("search=picasso&", body(response(entity("Q5593"), entity("Q2"))));
+        stubTerm("search=picasso museum&", body(response(entity("Q3"))));
+        stubTerm("search=museum&", body(response(entity("Q33506"))));
+
+        List<SearchResult> results = searchService.searchBatch(Arrays.asList(
+                new BatchSearchRequest("Picasso museum", "en"),
+                new BatchSearchRequest("Pablo Picasso", "en"),
+                new BatchSearchRequest("  pablo   PICASSO", "en"))).block();
+
+        assertEquals(3, results.size());
+        assertEquals("Picasso museum", results.get(0).getQuery());
+        assertEquals("Pablo Picasso", results.get(1).getQuery());
+        assertEquals("  pablo   PICASSO", results.get(2).getQuery());
+        assertEquals(results.get(1).getResults(), results.get(2).getResults());
+        verify(requestHeadersUriSpec, times(1)).uri(contains("search=picasso&"));
+        verify(requestHeadersUriSpec, times(1)).uri(contains("search=pablo picasso&"));
+    }
+
+    @Test
+    void testSaturatedUpstreamFallsBackToCachedSearch() {
+        stubTerm("search=galileo&", body(response(entity("Q307"))));
+        searchService.search("Galileo", "en").block();
+
+        // The term entry is gone and Wikidata has no free slot: the cached search of the word is used
+        ReflectionTestUtils.setField(searchService, "webClient", null);
+        cacheManager.getCache("wikidata-terms").clear();
+        stubTerm("search=galileo galilei&", Mono.error(new UpstreamSaturatedException("saturated")));
+        stubTerm("search=galileo&", Mono.error(new UpstreamSaturatedException("saturated")));
+        stubTerm("search=galilei&", body(response(entity("Q1"))));
+
+        SearchResult result = searchService.search("Galileo Galilei", "en").block();
+
+        assertEquals(Arrays.asList("Q307", "Q1"), result.getResults().stream().map(SearchResultItem::getId).toList());
+        assertTrue(result.isPartial());
+    }
+
+    @Test
+    void testOpenCircuitAnswersFromRetainedTermsWithoutCallingWikidata() {
+        stubTerm("search=kepler&", body(response(entity("Q8963"))));
+        searchService.search("Kepler", "en").block();
+
+        // Terms and searches have expired, but the term's last good result is retained
+        cacheManager.getCache("wikidata-terms").clear();
+        cacheManager.getCache("wikidata-searches").clear();
+        Object sharedBreaker = ReflectionTestUtils.getField(searchService, "circuitBreaker");
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker(true, 50, 1, 10, Duration.ofMinutes(1), 1, meterRegistry);
+        breaker.execute("wbsearchentities", Mono.error(new TimeoutException()))
+                .onErrorResume(e -> Mono.empty())
+                .block();
+        ReflectionTestUtils.setField(searchService, "circuitBreaker", breaker);
+        try {
+            SearchResult result = searchService.search("Kepler", "en").block(Duration.ofSeconds(1));
+
+            assertEquals(List.of("Q8963"), result.getResults().stream().map(SearchResultItem::getId).toList());
+            assertTrue(result.isPartial());
+            verify(requestHeadersUriSpec, times(1)).uri(contains("search=kepler&"));
+        } finally {
+            ReflectionTestUtils.setField(searchService, "circuitBreaker", sharedBreaker);
+        }
+    }
+
+    @Test
+    void testTermThatTripsTheCircuitIsAnsweredFromRetainedData() {
+        stubTerm("search=copernicus&", body(response(entity("Q619"))));
+        searchService.search("Copernicus", "en").block();
+
+        cacheManager.getCache("wikidata-terms").clear();
+        cacheManager.getCache("wikidata-searches").clear();
+        Object sharedBreaker = ReflectionTestUtils.getField(searchService, "circuitBreaker");
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker(true, 50, 1, 10, Duration.ofMinutes(1), 1, meterRegistry);
+        ReflectionTestUtils.setField(searchService, "circuitBreaker", breaker);
+        stubTerm("search=copernicus&", Mono.error(new TimeoutException("Wikidata timed out")));
+        try {
+            // The timeout opens the circuit, and neither answer is an empty page
+            SearchResult failed = searchService.search("Copernicus", "en").block(Duration.ofSeconds(1));
+            cacheManager.getCache("wikidata-searches").clear();
+            SearchResult open = searchService.search("Copernicus", "en").block(Duration.ofSeconds(1));
+
+            assertEquals(UpstreamCircuitBreaker.State.OPEN, breaker.state("wbsearchentities"));
+            for (SearchResult result : List.of(failed, open)) {
+                assertEquals(List.of("Q619"), result.getResults().stream().map(SearchResultItem::getId).toList());
+                assertTrue(result.isPartial());
+            }
+            verify(requestHeadersUriSpec, times(2)).uri(contains("search=copernicus&"));
+        } finally {
+            ReflectionTestUtils.setField(searchService, "circuitBreaker", sharedBreaker);
+        }
+    }
+
+    @Test
+    void testHybridModeServesLocalHitsAndSendsOnlyMissesUpstream(@TempDir Path dir) throws IOException {
+        Path dump = dir.resolve("dump.ndjson");
+        Files.writeString(dump, """
+                {"id":"Q1035","labels":{"en":{"language":"en","value":"Charles Darwin"}},"descriptions":{},"aliases":{}}
+                """);
+        LocalSearchIndex index = new LocalSearchIndex(dir.resolve("index").toString(), 100, meterRegistry);
+        new LocalIndexImporter(index, objectMapper, dump.toString(), List.of("en"), 1000, 32).importDumps();
+        stubTerm("search=darwin origin&", body(response(entity("Q20"))));
+        stubTerm("search=origin&", body(response(entity("Q21"))));
+
+        Object sharedIndex = ReflectionTestUtils.getField(searchService, "localIndex");
+        ReflectionTestUtils.setField(searchService, "localIndex", index);
+        ReflectionTestUtils.setField(searchService, "searchMode", SearchMode.HYBRID);
+        try {
+            SearchResult result = searchService.search("Darwin Origin", "en").block();
+
+            assertEquals(List.of("Q20", "Q1035", "Q21"), result.getResults().stream().map(SearchResultItem::getId).toList());
+            verify(requestHeadersUriSpec, never()).uri(contains("search=darwin&"));
+        } finally {
+            ReflectionTestUtils.setField(searchService, "localIndex", sharedIndex);
+            ReflectionTestUtils.setField(searchService, "searchMode", SearchMode.REMOTE);
+        }
+    }
+
+    @Test
+    void testMisspelledQueryIsSearchedAsTheNearestKnownQuery() {
+        SuggestionService vocabulary = new SuggestionService(cacheManager, mock(HistoryService.class),
+                new QueryNormalizer(Set.of(), Set.of()), List.of("en"), 100, 30, 1000, 2);
+        vocabulary.record("rosalind franklin", "en");
+        vocabulary.rebuild();
+        stubTerm("search=rosalind franklin&", body(response(entity("Q7474"))));
+        stubTerm("search=rosalind&", body(response(entity("Q1"))));
+        stubTerm("search=franklin&", body(response(entity("Q2"))));
+
+        Object sharedVocabulary = ReflectionTestUtils.getField(searchService, "suggestionService");
+        ReflectionTestUtils.setField(searchService, "suggestionService", vocabulary);
+        try {
+            SearchResult result = searchService.search("Rosalind Frankiln", "en").block();
+
+            assertEquals("rosalind franklin", result.getDidYouMean());
+            assertEquals("Rosalind Frankiln", result.getQuery());
+            assertEquals("Q7474", result.getResults().get(0).getId());
+            verify(requestHeadersUriSpec, never()).uri(contains("frankiln"));
+
+            // A known query is searched as asked
+            assertNull(searchService.search("Rosalind Franklin", "en").block().getDidYouMean());
+        } finally {
+            ReflectionTestUtils.setField(searchService, "suggestionService", sharedVocabulary);
+        }
+    }
+
+    @Test
+    void testExactSearchIsNotRewrittenToANearbyKnownQuery() {
+        SuggestionService vocabulary = new SuggestionService(cacheManager, mock(HistoryService.class),
+                new QueryNormalizer(Set.of(), Set.of()), List.of("en"), 100, 30, 1000, 2);
+        vocabulary.record("paris", "en");
+        vocabulary.rebuild();
+        stubTerm("search=paris&", body(response(entity("Q90"))));
+        stubTerm("search=parts&", body(response(entity("Q15989253"))));
+
+        Object sharedVocabulary = ReflectionTestUtils.getField(searchService, "suggestionService");
+        ReflectionTestUtils.setField(searchService, "suggestionService", vocabulary);
+        try {
+            SearchResult corrected = searchService.search("parts", "en").block();
+            SearchResult exact = searchService.search("parts", "en", null, true).block();
+
+            assertEquals("paris", corrected.getDidYouMean());
+            assertNull(exact.getDidYouMean());
+            assertEquals("Q15989253", exact.getResults().get(0).getId());
+            verify(requestHeadersUriSpec, times(1)).uri(contains("search=parts&"));
+        } finally {
+            ReflectionTestUtils.setField(searchService, "suggestionService", sharedVocabulary);
+        }
+    }
+
+    @Test
+    void testCorrectedMisspellingIsStillCorrectedAfterARebuild() {
+        SuggestionService vocabulary = new SuggestionService(cacheManager, mock(HistoryService.class),
+                new QueryNormalizer(Set.of(), Set.of()), List.of("en"), 100, 30, 1000, 2);
+        vocabulary.record("dorothy hodgkin", "en");
+        vocabulary.rebuild();
+        stubTerm("search=dorothy hodgkin&", body(response(entity("Q7488"))));
+        stubTerm("search=dorothy&", body(response(entity("Q1"))));
+        stubTerm("search=hodgkin&", body(response(entity("Q2"))));
+
+        Object sharedVocabulary = ReflectionTestUtils.getField(searchService, "suggestionService");
+        ReflectionTestUtils.setField(searchService, "suggestionService", vocabulary);
+        ReflectionTestUtils.setField(searchController, "suggestionService", vocabulary);
+        try {
+            SearchResult first = searchController.search("Dorothy Hodgkni", "en", null, null, null,
+                    null, null, null, null, false).block();
+            assertEquals("dorothy hodgkin", first.getDidYouMean());
+
+            // What the search recorded must not make the misspelling a known query
+            vocabulary.rebuild();
+
+            SearchResult second = searchController.search("Dorothy Hodgkni", "en", null, null, null,
+                    null, null, null, null, false).block();
+            assertEquals("dorothy hodgkin", second.getDidYouMean());
+            assertEquals("Q7488", second.getResults().get(0).getId());
+            assertEquals(List.of("dorothy hodgkin"), vocabulary.suggest("dorothy", "en", 10).stream()
+                    .map(Suggestion::getText).toList());
+            verify(requestHeadersUriSpec, never()).uri(contains("hodgkni"));
+        } finally {
+            ReflectionTestUtils.setField(searchService, "suggestionService", sharedVocabulary);
+            ReflectionTestUtils.setField(searchController, "suggestionService", sharedVocabulary);
+        }
+    }
+
+    @Test
+    void testLanguagesAreSearchedTogetherAndMergedWithThePreferredTextWinning() {
+        stubTerm("search=velazquez&language=es&", body(response(
+                entity("Q297", "pintor español"), entity("Q10", null))));
+        stubTerm("search=velazquez&language=en&", body(response(
+                entity("Q297", "Spanish painter"), entity("Q10", "filled in"), entity("Q11", "english only"))));
+
+        SearchResult result = searchService.searchLanguages("Velazquez", List.of("es", "en"), null).block();
+
+        assertEquals(List.of("Q297", "Q10", "Q11"), result.getResults().stream().map(SearchResultItem::getId).toList());
+        assertEquals(List.of("pintor español", "filled in", "english only"),
+                result.getResults().stream().map(SearchResultItem::getDescription).toList());
+        assertEquals(3, result.getTotalResults());
+
+        // Each language was cached on its own
+        searchService.search("Velazquez", "en").block();
+        verify(requestHeadersUriSpec, times(1)).uri(contains("search=velazquez&language=en&"));
+    }
+
+    @Test
+    void testExpandFetchesEntitiesInBatchesAndCachesThemPerEntity() {
+        ReflectionTestUtils.setField(searchService, "expandBatchSize", 2);
+        try {
+            stubTerm("action=wbgetentities&ids=Q7259|Q7251&", entities("Q7259", "Q7251"));
+            stubTerm("action=wbgetentities&ids=Q8016&", entities("Q8016"));
+            SearchResult result = SearchResult.builder()
+                    .query("computing pioneers")
+                    .results(List.of(new SearchResultItem("Q7259", "Ada Lovelace", null, null),
+                            new SearchResultItem("Q7251", "Alan Turing", null, null),
+                            new SearchResultItem("Q8016", "Grace Hopper", null, null)))
+                    .totalResults(3)
+                    .build();
+
+            SearchResult expanded = searchService.expand(result, "en",
+                    Set.of(EntityExpansion.ALIASES, EntityExpansion.IMAGE)).block();
+
+            assertFalse(expanded.isPartial());
+            assertEquals(List.of("Q7259", "Q7251", "Q8016"),
+                    expanded.getResults().stream().map(SearchResultItem::getId).toList());
+            SearchResultItem first = expanded.getResults().get(0);
+            assertEquals(List.of("Q7259 alias"), first.getAliases());
+            assertEquals("https://commons.wikimedia.org/wiki/Special:FilePath/Q7259_portrait.jpg", first.getImage());
+            // Not asked for
+            assertNull(first.getClaims());
+            // The item passed in is left as it was
+            assertNull(result.getResults().get(0).getAliases());
+
+            // Another search sharing an entity reads it from the entity cache
+            SearchResult other = SearchResult.builder()
+                    .query("turing")
+                    .results(List.of(new SearchResultItem("Q7251", "Alan Turing", null, null)))
+                    .totalResults(1)
+                    .build();
+            SearchResult claims = searchService.expand(other, "en", Set.of(EntityExpansion.CLAIMS)).block();
+            assertEquals(List.of("Q5"), claims.getResults().get(0).getClaims().get("P31"));
+
+            verify(requestHeadersUriSpec, times(1)).uri(contains("ids=Q7259|Q7251&"));
+            verify(requestHeadersUriSpec, times(1)).uri(contains("ids=Q8016&"));
+        } finally {
+            ReflectionTestUtils.setField(searchService, "expandBatchSize", 50);
+        }
+    }
+
+    private void stubTerm(String urlFragment, Mono<DataBuffer> body) {
+        WebClient.RequestHeadersSpec termSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec termResponse = mock(WebClient.ResponseSpec.class);
+        when(requestHeadersUriSpec.uri(contains(urlFragment))).thenReturn(termSpec);
+        when(termSpec.retrieve()).thenReturn(termResponse);
+        when(termResponse.bodyToMono(DataBuffer.class)).thenReturn(body);
+    }
+
+    // A wbgetentities response where every entity has an alias, an image and is human
+    private Mono<DataBuffer> entities(String... ids) {
+        return Mono.fromCallable(() -> {
+            ObjectNode json = objectMapper.createObjectNode();
+            ObjectNode entities = json.putObject("entities");
+            for (String id : ids) {
+                ObjectNode entity = entities.putObject(id);
+                entity.put("id", id);
+                entity.putObject("aliases").putArray("en").addObject()
+                        .put("language", "en").put("value", id + " alias");
+                ObjectNode claims = entity.putObject("claims");
+                claims.putArray("P18").addObject().put("rank", "normal").putObject("mainsnak")
+                        .putObject("datavalue").put("type", "string").put("value", id + " portrait.jpg");
+                claims.putArray("P31").addObject().put("rank", "normal").putObject("mainsnak")
+                        .putObject("datavalue").put("type", "wikibase-entityid")
+                        .putObject("value").put("entity-type", "item").put("id", "Q5");
+            }
+            json.put("success", 1);
+            return DefaultDataBufferFactory.sharedInstance.wrap(objectMapper.writeValueAsBytes(json));
+        });
+    }
+
+    // A fresh buffer per subscription, as each WebClient exchange would produce
+    private Mono<DataBuffer> body(WikidataResponse response) {
+        return Mono.fromCallable(() -> DefaultDataBufferFactory.sharedInstance.wrap(
+                objectMapper.writeValueAsBytes(response)));
+    }
+
+    private Mono<DataBuffer> body(WikidataResponse response, Integer searchContinue) {
+        return Mono.fromCallable(() -> {
+            ObjectNode json = objectMapper.valueToTree(response);
+            if (searchContinue != null) {
+                json.put("search-continue", searchContinue);
+            }
+            return DefaultDataBufferFactory.sharedInstance.wrap(objectMapper.writeValueAsBytes(json));
+        });
+    }
+
+    private WikidataResponse response(WikidataSearchEntity... entities) {
+        WikidataResponse response = new WikidataResponse();
+        response.setSuccess(true);
+        response.setSearch(Arrays.asList(entities));
+        return response;
+    }
+
+    private WikidataSearchEntity entity(String id, String description) {
+        WikidataSearchEntity entity = entity(id);
+        entity.setDescription(description);
+        return entity;
+    }
+
+    private WikidataSearchEntity entity(String id) {
+        WikidataSearchEntity entity = new WikidataSearchEntity();
+        entity.setId(id);
+        entity.setTitle("Title " + id);
+        entity.setUrl("//www.wikidata.org/wiki/" + id);
+        return entity;
+    }
 }
@@ -0,0 +1,104 @@
+package com.searchmiw.search.service;
+
+import com.searchmiw.search.cache.SearchKey;
+import com.searchmiw.search.config.CacheConfig;
+import com.searchmiw.search.model.PopularQuery;
+import com.searchmiw.search.model.SearchResult;
+import com.searchmiw.search.model.Suggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SuggestionServiceTest {
+
+    private final HistoryService historyService = mock(HistoryService.class);
+    private SuggestionService suggestionService;
+
+    @BeforeEach
+    void setUp() {
+        when(historyService.fetchPopularQueries(anyString(), anyInt(), anyInt())).thenReturn(Flux.empty());
+        suggestionService = new SuggestionService(mock(CacheManager.class), historyService,
+                new QueryNormalizer(Set.of(), Set.of()), List.of("en", "es"), 100, 30, 1000, 2);
+    }
+
+    private List<String> suggest(String prefix, String language) {
+        return suggestionService.suggest(prefix, language, 10).stream().map(Suggestion::getText).toList();
+    }
+
+    @Test
+    void recordedSearchesBecomeSuggestionsAfterARebuild() {
+        suggestionService.record("Albert Einstein", "en");
+        assertTrue(suggest("alb", "en").isEmpty());
+
+        suggestionService.rebuild();
+
+        assertEquals(List.of("albert einstein"), suggest("Alb", "en"));
+        assertTrue(suggest("alb", "es").isEmpty());
+    }
+
+    @Test
+    void historyCountsAndLocalSearchesAddUp() {
+        when(historyService.fetchPopularQueries(eq("en"), anyInt(), anyInt())).thenReturn(Flux.just(
+                new PopularQuery("Albert Camus", "en", 3L),
+                new PopularQuery("Albert Einstein", "en", 2L)));
+        suggestionService.refreshFromHistory().block();
+        suggestionService.record("albert einstein", "en");
+        suggestionService.record("ALBERT EINSTEIN", "en");
+
+        suggestionService.rebuild();
+
+        List<Suggestion> suggestions = suggestionService.suggest("albert", "en", 10);
+        assertEquals("albert einstein", suggestions.get(0).getText());
+        assertEquals(4L, suggestions.get(0).getWeight());
+        assertEquals("albert camus", suggestions.get(1).getText());
+    }
+
+    @Test
+    void trailingSpaceAsksForTheNextWord() {
+        suggestionService.record("marie curie", "en");
+        suggestionService.record("mariella", "en");
+        suggestionService.rebuild();
+
+        assertEquals(List.of("marie curie"), suggest("marie ", "en"));
+    }
+
+    @Test
+    void misspelledQueriesAreCorrectedToKnownOnes() {
+        suggestionService.record("albert einstein", "en");
+        suggestionService.rebuild();
+
+        assertEquals("albert einstein", suggestionService.correct("albert einstien", "en"));
+        assertNull(suggestionService.correct("albert einstein", "en"));
+        assertNull(suggestionService.correct("albert einstien", "es"));
+    }
+
+    @Test
+    void cachedQueriesFollowTheCacheContents() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.SEARCH_CACHE);
+        cacheManager.setAsyncCacheMode(true);
+        Cache cache = cacheManager.getCache(CacheConfig.SEARCH_CACHE);
+        SuggestionService fromCache = new SuggestionService(cacheManager, historyService,
+                new QueryNormalizer(Set.of(), Set.of()), List.of("en"), 100, 30, 1000, 2);
+        SearchKey key = new SearchKey("niels bohr", "en");
+        cache.put(key, SearchResult.builder().query("niels bohr").totalResults(1).build());
+
+        fromCache.rebuild();
+        assertEquals(1, fromCache.suggest("niels", "en", 10).size());
+
+        // Evicted queries are no longer suggested, so the vocabulary stays as bounded as the cache
+        cache.evict(key);
+        fromCache.rebuild();
+        assertTrue(fromCache.suggest("niels", "en", 10).isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package com.searchmiw.search.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchmiw.search.model.EntityDetails;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WikidataEntityDecoderTest {
+
+    private final WikidataEntityDecoder decoder = new WikidataEntityDecoder(new ObjectMapper());
+
+    @Test
+    void keepsAliasesOfTheLanguageAndTheBestRankedClaims() throws Exception {
+        String json = """
+                {"entities":{
+                   "Q42":{"type":"item","id":"Q42",
+                     "aliases":{"en":[{"language":"en","value":"Douglas Noel Adams"},
+                                      {"language":"en","value":"DNA"}],
+                                "de":[{"language":"de","value":"Douglas Noël Adams"}]},
+                     "claims":{
+                       "P31":[{"mainsnak":{"snaktype":"value","property":"P31",
+                               "datavalue":{"value":{"entity-type":"item","numeric-id":5,"id":"Q5"},
+                                            "type":"wikibase-entityid"}},"rank":"normal"}],
+                       "P18":[{"mainsnak":{"snaktype":"value","datavalue":{"value":"Douglas adams portrait.jpg",
+                               "type":"string"}},"rank":"normal"}],
+                       "P569":[{"mainsnak":{"snaktype":"value","datavalue":{"value":{"time":"+1952-03-11T00:00:00Z",
+                               "precision":11},"type":"time"}},"rank":"normal"}],
+                       "P1082":[{"mainsnak":{"snaktype":"value","datavalue":{"value":{"amount":"+1"},
+                                 "type":"quantity"}},"rank":"deprecated"}],
+                       "P735":[{"mainsnak":{"snaktype":"value","datavalue":{"value":{"id":"Q463035"},
+                                "type":"wikibase-entityid"}},"rank":"normal"},
+                               {"mainsnak":{"snaktype":"value","datavalue":{"value":{"id":"Q19688263"},
+                                "type":"wikibase-entityid"}},"rank":"preferred"}],
+                       "P570":[{"mainsnak":{"snaktype":"somevalue"},"rank":"normal"}]
+                     }},
+                   "Q0":{"id":"Q0","missing":""}
+                 },
+                 "success":1}
+                """;
+
+        Map<String, EntityDetails> entities = decoder.decode(json.getBytes(StandardCharsets.UTF_8), "en");
+
+        EntityDetails adams = entities.get("Q42");
+        assertEquals(List.of("Douglas Noel Adams", "DNA"), adams.aliases());
+        assertEquals("https://commons.wikimedia.org/wiki/Special:FilePath/Douglas_adams_portrait.jpg", adams.image());
+        assertEquals(List.of("Q5"), adams.claims().get("P31"));
+        assertEquals(List.of("+1952-03-11T00:00:00Z"), adams.claims().get("P569"));
+        // Only the preferred statement, and nothing for deprecated or value-less ones
+        assertEquals(List.of("Q19688263"), adams.claims().get("P735"));
+        assertFalse(adams.claims().containsKey("P1082"));
+        assertFalse(adams.claims().containsKey("P570"));
+        assertFalse(adams.missing());
+
+        assertTrue(entities.get("Q0").missing());
+    }
+
+    @Test
+    void errorResponseHasNoEntities() throws Exception {
+        String json = "{\"error\":{\"code\":\"no-such-entity\",\"info\":\"Could not find an entity\"}}";
+
+        assertTrue(decoder.decode(json.getBytes(StandardCharsets.UTF_8), "en").isEmpty());
+    }
+}
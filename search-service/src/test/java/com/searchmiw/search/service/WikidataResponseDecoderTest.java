@@ -0,0 +1,58 @@
+package com.searchmiw.search.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchmiw.search.model.SearchResultItem;
+import com.searchmiw.search.model.WikidataPage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WikidataResponseDecoderTest {
+
+    private final WikidataResponseDecoder decoder = new WikidataResponseDecoder(new ObjectMapper());
+
+    @Test
+    void readsOnlyTheFieldsWeUse() throws Exception {
+        String json = """
+                {"searchinfo":{"search":"einstein"},
+                 "search":[
+                   {"id":"Q937","title":"Q937","pageid":1,"display":{"label":{"value":"Albert Einstein"}},
+                    "url":"//www.wikidata.org/wiki/Q937","description":"physicist",
+                    "match":{"type":"label","language":"en","text":"Albert Einstein"},"aliases":["Einstein"]},
+                   {"id":"Q1","title":"Q1","url":"/wiki/Q1"},
+                   {"id":"Q2","title":"Q2"}
+                 ],
+                 "search-continue":7,"success":1}
+                """;
+
+        WikidataPage page = decoder.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(7, page.continueOffset());
+        assertEquals(List.of(
+                new SearchResultItem("Q937", "Q937", "physicist", "https://www.wikidata.org/wiki/Q937"),
+                new SearchResultItem("Q1", "Q1", null, "https://www.wikidata.org/wiki/Q1"),
+                new SearchResultItem("Q2", "Q2", null, "https://www.wikidata.org/wiki/Q2")), page.items());
+    }
+
+    @Test
+    void dropsRepeatedIdsWhileParsing() throws Exception {
+        String json = """
+                {"search":[{"id":"Q5","title":"first"},{"id":"Q5","title":"second"},{"id":"Q6"}]}
+                """;
+
+        WikidataPage page = decoder.decode(json.getBytes(StandardCharsets.UTF_8));
+        List<SearchResultItem> items = page.items();
+
+        assertNull(page.continueOffset());
+        assertEquals(List.of("Q5", "Q6"), items.stream().map(SearchResultItem::getId).toList());
+        assertEquals("first", items.get(0).getTitle());
+    }
+
+    @Test
+    void responseWithoutSearchArrayIsEmpty() throws Exception {
+        assertTrue(decoder.decode("{\"error\":{\"code\":\"badvalue\"}}".getBytes(StandardCharsets.UTF_8)).isEmpty());
+    }
+}
@@ -0,0 +1,186 @@
+package com.searchmiw.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Recorded Wikidata answers, read from NDJSON. Each line is either a recorded search,
+ * {@code {"search":"albert einstein","language":"en","results":[...]}} where results
+ * is the response's {@code search} array as Wikidata returned it, or a recorded
+ * entity, {@code {"entity":{...}}} as found in a wbgetentities response.
+ * <p>
+ * Terms are matched case-insensitively with whitespace collapsed. Terms that were not
+ * recorded get {@code syntheticResults} made-up entities with stable ids, so load
+ * tests can use any query. Entities not recorded are answered with the aliases they
+ * had in recorded search results and no claims.
+ */
+public class Corpus {
+
+    private static final String BUNDLED = "/corpus/wbsearchentities.ndjson";
+    private static final String ENTITY_URL = "//www.wikidata.org/wiki/";
+    // Wikidata caps limit at 50 for clients without the apihighlimits right
+    private static final int MAX_LIMIT = 50;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, ArrayNode> searches = new HashMap<>();
+    private final Map<String, ObjectNode> entities = new HashMap<>();
+    // Aliases of each entity as first seen in a recorded search result
+    private final Map<String, JsonNode> searchAliases = new HashMap<>();
+    private final int syntheticResults;
+
+    private Corpus(ObjectMapper objectMapper, int syntheticResults) {
+        this.objectMapper = objectMapper;
+        this.syntheticResults = syntheticResults;
+    }
+
+    public static Corpus bundled(ObjectMapper objectMapper, int syntheticResults) {
+        Corpus corpus = new Corpus(objectMapper, syntheticResults);
+        try (InputStream in = Corpus.class.getResourceAsStream(BUNDLED)) {
+            corpus.read(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return corpus;
+    }
+
+    /**
+     * Loads a corpus file, or every {@code .ndjson} file of a directory.
+     */
+    public static Corpus load(Path path, ObjectMapper objectMapper, int syntheticResults) throws IOException {
+        Corpus corpus = new Corpus(objectMapper, syntheticResults);
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> listing = Files.list(path)) {
+                files = listing.filter(file -> file.toString().endsWith(".ndjson")).sorted().toList();
+            }
+        } else {
+            files = List.of(path);
+        }
+        for (Path file : files) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                corpus.read(reader);
+            }
+        }
+        return corpus;
+    }
+
+    private void read(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode entry = objectMapper.readTree(line);
+            if (entry.has("entity")) {
+                ObjectNode entity = (ObjectNode) entry.get("entity");
+                entities.put(entity.path("id").asText(), entity);
+            } else {
+                ArrayNode results = (ArrayNode) entry.path("results");
+                searches.put(key(entry.path("search").asText(), entry.path("language").asText("en")), results);
+                for (JsonNode result : results) {
+                    if (result.has("aliases")) {
+                        searchAliases.putIfAbsent(result.path("id").asText(), result.get("aliases"));
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return searches.size();
+    }
+
+    /**
+     * Answers a wbsearchentities call: results {@code offset} to {@code offset + limit}
+     * of the term, with {@code search-continue} set when there are more.
+     */
+    public ObjectNode search(String term, String language, int offset, int limit) {
+        ArrayNode results = searches.get(key(term, language));
+        if (results == null) {
+            results = synthesize(term, language);
+        }
+        int from = Math.min(Math.max(offset, 0), results.size());
+        int to = Math.min(from + Math.min(Math.max(limit, 1), MAX_LIMIT), results.size());
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.putObject("searchinfo").put("search", term);
+        ArrayNode page = response.putArray("search");
+        for (int i = from; i < to; i++) {
+            page.add(results.get(i));
+        }
+        if (to < results.size()) {
+            response.put("search-continue", to);
+        }
+        response.put("success", 1);
+        return response;
+    }
+
+    /**
+     * Answers a wbgetentities call for the given ids.
+     */
+    public ObjectNode entities(List<String> ids, String language) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode found = response.putObject("entities");
+        for (String id : ids) {
+            ObjectNode entity = entities.get(id);
+            found.set(id, entity != null ? entity : minimalEntity(id, language));
+        }
+        response.put("success", 1);
+        return response;
+    }
+
+    private ArrayNode synthesize(String term, String language) {
+        ArrayNode results = objectMapper.createArrayNode();
+        // Stable ids per term, so repeated runs see the same entities
+        long base = 1_000_000L + Math.floorMod(key(term, language).hashCode(), 50_000_000);
+        for (int i = 0; i < syntheticResults; i++) {
+            String id = "Q" + (base + i);
+            String label = term + " " + (i + 1);
+            ObjectNode result = results.addObject();
+            result.put("id", id)
+                    .put("title", id)
+                    .put("pageid", base + i)
+                    .put("repository", "wikidata")
+                    .put("url", ENTITY_URL + id)
+                    .put("concepturi", "http://www.wikidata.org/entity/" + id)
+                    .put("label", label)
+                    .put("description", "synthetic result " + (i + 1) + " for " + term);
+            result.putObject("display").putObject("label").put("value", label).put("language", language);
+            result.putObject("match").put("type", "label").put("language", language).put("text", label);
+        }
+        return results;
+    }
+
+    // An entity with the aliases seen in recorded searches, or just its id
+    private ObjectNode minimalEntity(String id, String language) {
+        ObjectNode entity = objectMapper.createObjectNode();
+        entity.put("type", "item").put("id", id);
+        ArrayNode aliases = entity.putObject("aliases").putArray(language);
+        searchAliases.getOrDefault(id, objectMapper.createArrayNode())
+                .forEach(alias -> aliases.addObject().put("language", language).put("value", alias.asText()));
+        entity.putObject("claims");
+        return entity;
+    }
+
+    private static String key(String term, String language) {
+        return language + '\u0000' + term.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
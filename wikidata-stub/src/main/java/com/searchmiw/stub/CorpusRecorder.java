@@ -0,0 +1,75 @@
+package com.searchmiw.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Records a corpus from the real API: every query of a file, one per line, is searched
+ * in each language and its results written as a corpus line. Calls are spaced out
+ * by {@code pause} to stay well within Wikidata's rate limits.
+ */
+public class CorpusRecorder {
+
+    private static final String USER_AGENT = "searchmiw-wikidata-stub/0.0.1 (corpus recorder)";
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String apiUrl;
+    private final Duration pause;
+
+    public CorpusRecorder(String apiUrl, Duration pause) {
+        this.apiUrl = apiUrl;
+        this.pause = pause;
+    }
+
+    public int record(Path queries, List<String> languages, Path output) throws IOException, InterruptedException {
+        int recorded = 0;
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            for (String query : Files.readAllLines(queries, StandardCharsets.UTF_8)) {
+                if (query.isBlank()) {
+                    continue;
+                }
+                for (String language : languages) {
+                    ObjectNode line = objectMapper.createObjectNode();
+                    line.put("search", query.trim());
+                    line.put("language", language);
+                    line.set("results", search(query.trim(), language));
+                    writer.write(objectMapper.writeValueAsString(line));
+                    writer.write('\n');
+                    recorded++;
+                    Thread.sleep(pause.toMillis());
+                }
+            }
+        }
+        return recorded;
+    }
+
+    private JsonNode search(String query, String language) throws IOException, InterruptedException {
+        String url = apiUrl + "?action=wbsearchentities&format=json&limit=50"
+                + "&search=" + URLEncoder.encode(query, StandardCharsets.UTF_8)
+                + "&language=" + language + "&uselang=" + language;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("User-Agent", USER_AGENT)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Wikidata answered " + response.statusCode() + " for '" + query + "'");
+        }
+        return objectMapper.readTree(response.body()).path("search");
+    }
+}
@@ -0,0 +1,93 @@
+package com.searchmiw.stub;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Delay added before each answer. Written as {@code none}, {@code fixed:50ms},
+ * {@code uniform:10ms-200ms} or {@code lognormal:40ms-400ms}; a log-normal is given
+ * by its median and its 99th percentile, which reproduces the long tail of the real API.
+ */
+public sealed interface LatencyModel {
+
+    LatencyModel NONE = new Fixed(Duration.ZERO);
+
+    Pattern DURATION = Pattern.compile("(\\d+)(ms|s|m)");
+
+    Duration sample(Random random);
+
+    static LatencyModel parse(String spec) {
+        String value = spec.trim();
+        if (value.isEmpty() || value.equals("none")) {
+            return NONE;
+        }
+        int colon = value.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Latency must be none, fixed:, uniform: or lognormal:, got " + spec);
+        }
+        String kind = value.substring(0, colon);
+        String[] args = value.substring(colon + 1).split("-");
+        return switch (kind) {
+            case "fixed" -> new Fixed(duration(args[0]));
+            case "uniform" -> new Uniform(duration(args[0]), duration(second(args, spec)));
+            case "lognormal" -> LogNormal.of(duration(args[0]), duration(second(args, spec)));
+            default -> throw new IllegalArgumentException("Unknown latency model: " + kind);
+        };
+    }
+
+    record Fixed(Duration delay) implements LatencyModel {
+        @Override
+        public Duration sample(Random random) {
+            return delay;
+        }
+    }
+
+    record Uniform(Duration min, Duration max) implements LatencyModel {
+        @Override
+        public Duration sample(Random random) {
+            long span = max.toNanos() - min.toNanos();
+            return min.plusNanos(span > 0 ? (long) (random.nextDouble() * span) : 0);
+        }
+    }
+
+    record LogNormal(double mu, double sigma) implements LatencyModel {
+
+        // z-score of the 99th percentile of a standard normal
+        private static final double Z_99 = 2.326;
+
+        static LogNormal of(Duration median, Duration p99) {
+            double mu = Math.log(median.toNanos());
+            return new LogNormal(mu, Math.max(0, (Math.log(p99.toNanos()) - mu) / Z_99));
+        }
+
+        @Override
+        public Duration sample(Random random) {
+            return Duration.ofNanos((long) Math.exp(mu + sigma * random.nextGaussian()));
+        }
+    }
+
+    private static String second(String[] args, String spec) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Expected two durations separated by '-', got " + spec);
+        }
+        return args[1];
+    }
+
+    /**
+     * Parses {@code 250ms}, {@code 2s} or {@code 1m}.
+     */
+    static Duration duration(String text) {
+        Matcher matcher = DURATION.matcher(text.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Expected a duration such as 250ms, 2s or 1m, got " + text);
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "ms" -> Duration.ofMillis(amount);
+            case "s" -> Duration.ofSeconds(amount);
+            default -> Duration.ofMinutes(amount);
+        };
+    }
+}
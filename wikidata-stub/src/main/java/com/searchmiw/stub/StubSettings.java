@@ -0,0 +1,59 @@
+package com.searchmiw.stub;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * How the stub behaves. The defaults answer at once from the bundled corpus,
+ * on a free port, without faults or rate limiting.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class StubSettings {
+
+    // 0 picks a free port
+    @Builder.Default
+    private final int port = 0;
+
+    // Recorded corpus file or directory; null serves the one bundled with the stub
+    private final Path corpus;
+
+    @Builder.Default
+    private final LatencyModel latency = LatencyModel.NONE;
+
+    // Share of calls answered with error-status instead of results
+    @Builder.Default
+    private final double errorRate = 0;
+
+    @Builder.Default
+    private final int errorStatus = 503;
+
+    // Share of calls held for hang-for and then dropped, to exercise client timeouts
+    @Builder.Default
+    private final double hangRate = 0;
+
+    @Builder.Default
+    private final Duration hangFor = Duration.ofSeconds(30);
+
+    // Calls per second let through before answering 429; 0 disables the limit
+    @Builder.Default
+    private final double rateLimit = 0;
+
+    @Builder.Default
+    private final int rateBurst = 10;
+
+    // Results made up for terms the corpus has not recorded; 0 answers them empty
+    @Builder.Default
+    private final int syntheticResults = 20;
+
+    // Seed for latency and fault rolls, so runs are repeatable
+    @Builder.Default
+    private final long seed = 42;
+
+    public static StubSettings defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.searchmiw.stub;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What the stub has done since it started, for tests and benchmarks to check
+ * how many calls actually reached "Wikidata".
+ */
+public class StubStats {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public long requests() {
+        return requests.get();
+    }
+
+    // Answered 429 by the rate limit
+    public long throttled() {
+        return throttled.get();
+    }
+
+    // Answered with the injected error status
+    public long failed() {
+        return failed.get();
+    }
+
+    // Held for hang-for and then closed without an answer
+    public long dropped() {
+        return dropped.get();
+    }
+
+    void request() {
+        requests.incrementAndGet();
+    }
+
+    void throttle() {
+        throttled.incrementAndGet();
+    }
+
+    void fail() {
+        failed.incrementAndGet();
+    }
+
+    void drop() {
+        dropped.incrementAndGet();
+    }
+}
@@ -0,0 +1,87 @@
+package com.searchmiw.stub;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs the stub standalone. Settings are read from {@code --name=value} arguments or
+ * from {@code WIKIDATA_STUB_NAME} environment variables, for example
+ * {@code --latency=lognormal:40ms-400ms --error-rate=0.01 --rate-limit=50}.
+ * <p>
+ * {@code record <queries file> <output> [--languages=en,es]} records a corpus from
+ * the real API instead.
+ */
+public class WikidataStubApplication {
+
+    private static final String ENV_PREFIX = "WIKIDATA_STUB_";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        List<String> positional = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toList();
+        if (!positional.isEmpty() && positional.get(0).equals("record")) {
+            record(positional, options);
+            return;
+        }
+
+        String corpus = option(options, "corpus", "");
+        StubSettings settings = StubSettings.builder()
+                .port(Integer.parseInt(option(options, "port", "8090")))
+                .corpus(corpus.isBlank() ? null : Path.of(corpus))
+                .latency(LatencyModel.parse(option(options, "latency", "none")))
+                .errorRate(Double.parseDouble(option(options, "error-rate", "0")))
+                .errorStatus(Integer.parseInt(option(options, "error-status", "503")))
+                .hangRate(Double.parseDouble(option(options, "hang-rate", "0")))
+                .hangFor(LatencyModel.duration(option(options, "hang-for", "30s")))
+                .rateLimit(Double.parseDouble(option(options, "rate-limit", "0")))
+                .rateBurst(Integer.parseInt(option(options, "rate-burst", "10")))
+                .syntheticResults(Integer.parseInt(option(options, "synthetic-results", "20")))
+                .seed(Long.parseLong(option(options, "seed", "42")))
+                .build();
+
+        WikidataStubServer stub = WikidataStubServer.start(settings);
+        System.out.printf("Wikidata stub serving %d recorded searches at %s%n", stub.corpus().size(), stub.apiUrl());
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stub.close();
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+
+    private static void record(List<String> positional, Map<String, String> options) throws Exception {
+        if (positional.size() < 3) {
+            System.err.println("Usage: record <queries file> <output.ndjson> [--languages=en,es] [--api-url=...]");
+            System.exit(2);
+        }
+        CorpusRecorder recorder = new CorpusRecorder(
+                option(options, "api-url", "https://www.wikidata.org/w/api.php"),
+                LatencyModel.duration(option(options, "pause", "200ms")));
+        int recorded = recorder.record(Path.of(positional.get(1)),
+                Arrays.asList(option(options, "languages", "en").split(",")), Path.of(positional.get(2)));
+        System.out.printf("Recorded %d searches to %s%n", recorded, positional.get(2));
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int equals = arg.indexOf('=');
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+
+    private static String option(Map<String, String> options, String name, String fallback) {
+        String value = options.get(name);
+        if (value == null) {
+            value = System.getenv(ENV_PREFIX + name.replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+        return value != null ? value : fallback;
+    }
+}
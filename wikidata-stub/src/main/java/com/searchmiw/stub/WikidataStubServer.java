@@ -0,0 +1,184 @@
+package com.searchmiw.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP stand-in for the Wikidata API at {@code /w/api.php}, answering wbsearchentities
+ * and wbgetentities from a {@link Corpus}.
+ * <p>
+ * Every call goes through the same steps as a call to a busy remote API would: the
+ * rate limit (429 with Retry-After once exceeded), an occasional call held for
+ * {@code hang-for} and dropped, the sampled latency, and an occasional
+ * {@code error-status} instead of the answer. Embed it with {@link #start} and point
+ * {@code wikidata.api.url} at {@link #apiUrl()}.
+ */
+public class WikidataStubServer implements AutoCloseable {
+
+    public static final String API_PATH = "/w/api.php";
+
+    private final StubSettings settings;
+    private final Corpus corpus;
+    private final ObjectMapper objectMapper;
+    private final RateLimiter rateLimiter;
+    private final Random random;
+    private final StubStats stats = new StubStats();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private WikidataStubServer(StubSettings settings, Corpus corpus, ObjectMapper objectMapper) throws IOException {
+        this.settings = settings;
+        this.corpus = corpus;
+        this.objectMapper = objectMapper;
+        this.rateLimiter = new RateLimiter(settings.getRateLimit(), settings.getRateBurst());
+        this.random = new Random(settings.getSeed());
+        this.server = HttpServer.create(new InetSocketAddress(settings.getPort()), 0);
+        // Latency is simulated by sleeping, so every call needs a thread of its own
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "wikidata-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(API_PATH, this::handle);
+    }
+
+    public static WikidataStubServer start(StubSettings settings) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Corpus corpus = settings.getCorpus() != null
+                ? Corpus.load(settings.getCorpus(), objectMapper, settings.getSyntheticResults())
+                : Corpus.bundled(objectMapper, settings.getSyntheticResults());
+        WikidataStubServer stub = new WikidataStubServer(settings, corpus, objectMapper);
+        stub.server.start();
+        return stub;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public String apiUrl() {
+        return "http://localhost:" + port() + API_PATH;
+    }
+
+    public StubStats stats() {
+        return stats;
+    }
+
+    public Corpus corpus() {
+        return corpus;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            stats.request();
+            if (!rateLimiter.tryAcquire()) {
+                stats.throttle();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 429, error("ratelimited", "You've exceeded your rate limit"));
+                return;
+            }
+            if (roll(settings.getHangRate())) {
+                stats.drop();
+                sleep(settings.getHangFor());
+                return;
+            }
+            sleep(settings.getLatency().sample(random));
+            if (roll(settings.getErrorRate())) {
+                stats.fail();
+                respond(exchange, settings.getErrorStatus(), error("internal_api_error", "Injected failure"));
+                return;
+            }
+            respond(exchange, 200, answer(parameters(exchange.getRequestURI().getRawQuery())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private ObjectNode answer(Map<String, String> parameters) {
+        String language = parameters.getOrDefault("language", "en");
+        return switch (parameters.getOrDefault("action", "")) {
+            case "wbsearchentities" -> corpus.search(parameters.getOrDefault("search", ""), language,
+                    integer(parameters.get("continue"), 0), integer(parameters.get("limit"), 7));
+            case "wbgetentities" -> corpus.entities(
+                    Arrays.asList(parameters.getOrDefault("ids", "").split("\\|")),
+                    parameters.getOrDefault("languages", "en").split("\\|")[0]);
+            // Like the real API, an unsupported call is still answered 200
+            default -> error("badvalue", "Unrecognized value for parameter \"action\"");
+        };
+    }
+
+    private ObjectNode error(String code, String info) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.putObject("error").put("code", code).put("info", info);
+        return response;
+    }
+
+    private void respond(HttpExchange exchange, int status, ObjectNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private boolean roll(double rate) {
+        return rate > 0 && random.nextDouble() < rate;
+    }
+
+    private static void sleep(Duration delay) {
+        if (delay.isZero() || delay.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(delay.toMillis(), delay.toNanosPart() % 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int integer(String value, int fallback) {
+        try {
+            return value != null ? Integer.parseInt(value) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.searchmiw.stub;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyModelTest {
+
+    @Test
+    void parsesEveryModel() {
+        assertEquals(LatencyModel.NONE, LatencyModel.parse("none"));
+        assertEquals(Duration.ofMillis(50), LatencyModel.parse("fixed:50ms").sample(new Random()));
+        Duration uniform = LatencyModel.parse("uniform:10ms-20ms").sample(new Random());
+        assertTrue(uniform.compareTo(Duration.ofMillis(10)) >= 0 && uniform.compareTo(Duration.ofMillis(20)) <= 0);
+        assertThrows(IllegalArgumentException.class, () -> LatencyModel.parse("gaussian:10ms"));
+        assertThrows(IllegalArgumentException.class, () -> LatencyModel.parse("uniform:10ms"));
+    }
+
+    @Test
+    void logNormalHitsItsMedianAndTail() {
+        LatencyModel model = LatencyModel.parse("lognormal:40ms-400ms");
+        Random random = new Random(7);
+        long[] samples = new long[20_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = model.sample(random).toNanos();
+        }
+        Arrays.sort(samples);
+
+        double median = samples[samples.length / 2] / 1e6;
+        double p99 = samples[(int) (samples.length * 0.99)] / 1e6;
+        assertEquals(40, median, 4);
+        assertEquals(400, p99, 60);
+    }
+}
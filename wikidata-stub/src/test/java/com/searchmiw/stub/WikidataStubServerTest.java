@@ -0,0 +1,107 @@
+package com.searchmiw.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WikidataStubServerTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void servesRecordedSearchesCaseInsensitively() throws Exception {
+        try (WikidataStubServer stub = WikidataStubServer.start(StubSettings.defaults())) {
+            HttpResponse<String> response = get(stub,
+                    "action=wbsearchentities&search=Albert%20%20Einstein&language=en&format=json");
+
+            assertEquals(200, response.statusCode());
+            JsonNode search = objectMapper.readTree(response.body()).path("search");
+            assertEquals("Q937", search.get(0).path("id").asText());
+            assertEquals("Albert Einstein", search.get(0).path("label").asText());
+            assertEquals(1, stub.stats().requests());
+        }
+    }
+
+    @Test
+    void pagesSyntheticResultsForUnrecordedTerms() throws Exception {
+        StubSettings settings = StubSettings.builder().syntheticResults(12).build();
+        try (WikidataStubServer stub = WikidataStubServer.start(settings)) {
+            JsonNode first = objectMapper.readTree(get(stub,
+                    "action=wbsearchentities&search=quasar&language=en&limit=10").body());
+            JsonNode second = objectMapper.readTree(get(stub,
+                    "action=wbsearchentities&search=quasar&language=en&limit=10&continue=10").body());
+
+            assertEquals(10, first.path("search").size());
+            assertEquals(10, first.path("search-continue").asInt());
+            assertEquals(2, second.path("search").size());
+            assertFalse(second.has("search-continue"));
+            // The same term always gets the same entities
+            JsonNode again = objectMapper.readTree(get(stub,
+                    "action=wbsearchentities&search=quasar&language=en&limit=10").body());
+            assertEquals(first.path("search").get(0).path("id"), again.path("search").get(0).path("id"));
+        }
+    }
+
+    @Test
+    void answersEntitiesWithTheirRecordedAliases() throws Exception {
+        try (WikidataStubServer stub = WikidataStubServer.start(StubSettings.defaults())) {
+            JsonNode entities = objectMapper.readTree(get(stub,
+                    "action=wbgetentities&ids=Q937%7CQ999999999&props=aliases%7Cclaims&languages=en").body())
+                    .path("entities");
+
+            assertEquals("Einstein", entities.path("Q937").path("aliases").path("en").get(0).path("value").asText());
+            assertTrue(entities.has("Q999999999"));
+        }
+    }
+
+    @Test
+    void injectsErrorsAtTheConfiguredRate() throws Exception {
+        StubSettings settings = StubSettings.builder().errorRate(1.0).errorStatus(502).build();
+        try (WikidataStubServer stub = WikidataStubServer.start(settings)) {
+            HttpResponse<String> response = get(stub, "action=wbsearchentities&search=einstein&language=en");
+
+            assertEquals(502, response.statusCode());
+            assertEquals(1, stub.stats().failed());
+        }
+    }
+
+    @Test
+    void throttlesCallsPastTheRateLimit() throws Exception {
+        StubSettings settings = StubSettings.builder().rateLimit(0.001).rateBurst(2).build();
+        try (WikidataStubServer stub = WikidataStubServer.start(settings)) {
+            assertEquals(200, get(stub, "action=wbsearchentities&search=paris&language=en").statusCode());
+            assertEquals(200, get(stub, "action=wbsearchentities&search=paris&language=en").statusCode());
+            HttpResponse<String> throttled = get(stub, "action=wbsearchentities&search=paris&language=en");
+
+            assertEquals(429, throttled.statusCode());
+            assertEquals("1", throttled.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(1, stub.stats().throttled());
+        }
+    }
+
+    @Test
+    void delaysAnswersByTheLatencyModel() throws Exception {
+        StubSettings settings = StubSettings.builder().latency(LatencyModel.parse("fixed:150ms")).build();
+        try (WikidataStubServer stub = WikidataStubServer.start(settings)) {
+            long start = System.nanoTime();
+            get(stub, "action=wbsearchentities&search=berlin&language=en");
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 150);
+        }
+    }
+
+    private HttpResponse<String> get(WikidataStubServer stub, String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(stub.apiUrl() + "?" + query)).build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}